@@ -0,0 +1,49 @@
+package scheduler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Streaming a solved week to disk in each export format, plain and gzipped
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ExportBenchmark {
+    @Param({"1000", "100000"})
+    public int employees;
+
+    @Param({"week.csv", "week.json", "week.ics", "week.ics.gz"})
+    public String fileName;
+
+    private ScheduleSnapshot snapshot;
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void solve() throws IOException {
+        Schedule schedule = new Schedule();
+        schedule.addEmployees(Rosters.employees(employees, Rosters.PreferenceDistribution.UNIFORM));
+        schedule.generateSchedule();
+        snapshot = schedule.getSnapshot();
+        directory = Files.createTempDirectory("export-benchmark");
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        Files.deleteIfExists(directory.resolve(fileName));
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public long export() throws IOException {
+        Path file = directory.resolve(fileName);
+        ScheduleExports.write(file, snapshot, LocalDate.of(2026, 1, 5));
+        return Files.size(file);
+    }
+}
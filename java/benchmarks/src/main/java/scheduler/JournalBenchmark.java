@@ -0,0 +1,79 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Shift;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Change journal: group-committed appends of preference edits, and replaying a journal of them
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class JournalBenchmark {
+    private static final int CHANGES = 1_000_000;
+
+    private List<ScheduleChange> edits;
+    private Path directory;
+    private Path replayFile;
+
+    @Setup(Level.Trial)
+    public void writeJournal() throws IOException {
+        List<Employee> employees = Rosters.employees(1000, Rosters.PreferenceDistribution.UNIFORM);
+        edits = new ArrayList<>(CHANGES);
+        for (int i = 0; i < CHANGES; i++) {
+            Employee employee = employees.get(i % employees.size());
+            DayOfWeek day = DayOfWeek.values()[i % DayOfWeek.values().length];
+            Shift shift = Shift.values()[i % Shift.values().length];
+            edits.add(i % 2 == 0 ? ScheduleChange.preferenceAdded(employee, day, shift)
+                : ScheduleChange.preferenceRemoved(employee, day, shift));
+        }
+        directory = Files.createTempDirectory("journal-benchmark");
+        replayFile = directory.resolve("replay.journal");
+        try (ChangeJournal journal = ChangeJournal.open(replayFile, ChangeJournal.NO_BASELINE)) {
+            for (ScheduleChange edit : edits) {
+                journal.append(edit);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    // All edits appended and synced once: the group-commit path
+    @Benchmark
+    @OperationsPerInvocation(CHANGES)
+    public long appendAndSync() throws IOException {
+        Path file = directory.resolve("append.journal");
+        Files.deleteIfExists(file);
+        try (ChangeJournal journal = ChangeJournal.open(file, ChangeJournal.NO_BASELINE)) {
+            for (ScheduleChange edit : edits) {
+                journal.append(edit);
+            }
+            journal.sync();
+            return journal.getDurable();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHANGES)
+    public long replay(Blackhole blackhole) throws IOException {
+        return ChangeJournal.replay(replayFile, ChangeJournal.NO_BASELINE, blackhole::consume);
+    }
+}
@@ -0,0 +1,43 @@
+package scheduler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Each phase of Schedule.generateSchedule() timed on its own. The preceding phases run in a
+// per-invocation setup, which JMH excludes from the measurement; at the small roster sizes the
+// phases are short enough that the invocation overhead is visible, so compare sizes with care.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PhaseBenchmarks {
+    
+    public static class FillToMinimum extends RosterState {
+        @Setup(Level.Invocation)
+        public void prepare() {
+            schedule.clearSchedule();
+        }
+        
+        @Benchmark
+        public Schedule fillToMinimum() {
+            schedule.fillToMinimum();
+            return schedule;
+        }
+    }
+    
+    public static class FillToTarget extends RosterState {
+        @Setup(Level.Invocation)
+        public void prepare() {
+            schedule.clearSchedule();
+            schedule.fillToMinimum();
+        }
+        
+        @Benchmark
+        public Schedule fillToTarget() {
+            schedule.fillToTarget();
+            return schedule;
+        }
+    }
+}
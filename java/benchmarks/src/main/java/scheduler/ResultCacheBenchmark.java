@@ -0,0 +1,42 @@
+package scheduler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Regenerating an unchanged roster: a full greedy solve against a ScheduleCache hit
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ResultCacheBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int employees;
+
+    private Schedule uncached;
+    private Schedule cached;
+
+    @Setup(Level.Trial)
+    public void buildSchedules() {
+        uncached = new Schedule();
+        uncached.addEmployees(Rosters.employees(employees, Rosters.PreferenceDistribution.UNIFORM));
+        cached = new Schedule();
+        cached.addEmployees(Rosters.employees(employees, Rosters.PreferenceDistribution.UNIFORM));
+        cached.setCache(new ScheduleCache(1L << 20));
+        cached.generateSchedule(); // The miss; every measured call hits
+    }
+
+    @Benchmark
+    public long solve() {
+        uncached.generateSchedule();
+        return uncached.getSnapshot().getVersion();
+    }
+
+    @Benchmark
+    public long cacheHit() {
+        cached.generateSchedule();
+        return cached.getSnapshot().getVersion();
+    }
+}
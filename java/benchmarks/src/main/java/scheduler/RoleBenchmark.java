@@ -0,0 +1,64 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Role;
+import dtos.Shift;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// A full greedy solve with every shift requiring a keyholder and a cashier, against the same
+// roster with no roles required; about one employee in twenty holds the keys, one in three a till
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RoleBenchmark {
+    @Param({"1000", "50000"})
+    public int employees;
+
+    private Schedule roleless;
+    private Schedule withRoles;
+
+    @Setup(Level.Trial)
+    public void buildSchedules() {
+        roleless = new Schedule();
+        roleless.addEmployees(Rosters.employees(employees, Rosters.PreferenceDistribution.UNIFORM));
+
+        StaffingLevels staffing = StaffingLevels.DEFAULT;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                staffing = staffing.requireRoles(day, shift, Role.KEYHOLDER, Role.CASHIER);
+            }
+        }
+        List<Employee> roster = Rosters.employees(employees, Rosters.PreferenceDistribution.UNIFORM);
+        Random random = new Random(632L);
+        for (Employee employee : roster) {
+            if (random.nextInt(20) == 0) {
+                employee.addRole(Role.KEYHOLDER);
+            }
+            if (random.nextInt(3) == 0) {
+                employee.addRole(Role.CASHIER);
+            }
+        }
+        withRoles = new Schedule();
+        withRoles.setStaffing(staffing);
+        withRoles.addEmployees(roster);
+    }
+
+    @Benchmark
+    public long roleless() {
+        roleless.generateSchedule();
+        return roleless.getSnapshot().getVersion();
+    }
+
+    @Benchmark
+    public long withRoles() {
+        withRoles.generateSchedule();
+        return withRoles.getSnapshot().getVersion();
+    }
+}
@@ -0,0 +1,20 @@
+package scheduler;
+
+import org.openjdk.jmh.annotations.*;
+
+// Shared roster parameters; the roster is built once per trial
+@State(Scope.Thread)
+public abstract class RosterState {
+    @Param({"10", "1000", "100000", "1000000"})
+    public int rosterSize;
+    
+    @Param({"UNIFORM", "ALL_MORNING", "SPARSE"})
+    public Rosters.PreferenceDistribution distribution;
+    
+    protected Schedule schedule;
+    
+    @Setup(Level.Trial)
+    public void buildRoster() {
+        schedule = Rosters.schedule(rosterSize, distribution);
+    }
+}
@@ -0,0 +1,59 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.EmployeeStore;
+import dtos.Shift;
+
+import java.util.*;
+
+// Deterministic rosters for the benchmarks, so runs are comparable against a baseline
+public final class Rosters {
+    private static final long SEED = 632L;
+    
+    public enum PreferenceDistribution {
+        UNIFORM,     // each day/shift preferred with probability 1/3
+        ALL_MORNING, // morning every day, like the specialists in ScheduleManagerTest
+        SPARSE       // about one preference per employee per week
+    }
+    
+    private Rosters() {
+    }
+    
+    static List<Employee> employees(int size, PreferenceDistribution distribution) {
+        Random random = new Random(SEED);
+        EmployeeStore store = new EmployeeStore(size);
+        List<Employee> employees = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Employee employee = store.add("employee-" + i);
+            for (DayOfWeek day : DayOfWeek.values()) {
+                for (Shift shift : Shift.values()) {
+                    if (prefers(distribution, random, shift)) {
+                        employee.addPreference(day, shift);
+                    }
+                }
+            }
+            employees.add(employee);
+        }
+        return employees;
+    }
+    
+    static Schedule schedule(int size, PreferenceDistribution distribution) {
+        Schedule schedule = new Schedule();
+        schedule.addEmployees(employees(size, distribution));
+        return schedule;
+    }
+    
+    private static boolean prefers(PreferenceDistribution distribution, Random random, Shift shift) {
+        switch (distribution) {
+            case UNIFORM:
+                return random.nextInt(3) == 0;
+            case ALL_MORNING:
+                return shift == Shift.MORNING;
+            case SPARSE:
+                return random.nextInt(21) == 0;
+            default:
+                throw new IllegalArgumentException("Unknown distribution: " + distribution);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package scheduler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end solve and rendering of the weekly schedule
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ScheduleBenchmark extends RosterState {
+    private PrintStream originalOut;
+    private final WritableByteChannel discard = Channels.newChannel(OutputStream.nullOutputStream());
+    
+    @Setup(Level.Trial)
+    public void solveAndSilenceStdout() {
+        schedule.generateSchedule();
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+    
+    @TearDown(Level.Trial)
+    public void restoreStdout() {
+        System.setOut(originalOut);
+    }
+    
+    @Benchmark
+    public Schedule generateSchedule() {
+        schedule.generateSchedule();
+        return schedule;
+    }
+    
+    @Benchmark
+    public Schedule generateScheduleInParallel() {
+        schedule.generateScheduleInParallel();
+        return schedule;
+    }
+    
+    @Benchmark
+    public Schedule printSchedule() {
+        schedule.printSchedule();
+        return schedule;
+    }
+    
+    @Benchmark
+    public Schedule renderToChannel() throws IOException {
+        new ScheduleRenderer(discard).render(schedule);
+        return schedule;
+    }
+}
@@ -0,0 +1,61 @@
+package scheduler;
+
+import dtos.Employee;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Many independent site rosters: a sequential loop against ScheduleService at one solve per core
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ServiceBenchmark {
+    @Param({"256"})
+    public int sites;
+    
+    @Param({"200", "2000"})
+    public int employeesPerSite;
+    
+    private Map<String, List<Employee>> rosters;
+    private ScheduleService service;
+    
+    @Setup(Level.Trial)
+    public void buildSites() {
+        rosters = new LinkedHashMap<>();
+        for (int i = 0; i < sites; i++) {
+            rosters.put("site-" + i, Rosters.employees(employeesPerSite, Rosters.PreferenceDistribution.UNIFORM));
+        }
+        service = new ScheduleService();
+    }
+    
+    @TearDown(Level.Trial)
+    public void stopService() {
+        service.close();
+    }
+    
+    @Benchmark
+    public int sequential() {
+        int matches = 0;
+        for (List<Employee> roster : rosters.values()) {
+            Schedule schedule = new Schedule();
+            schedule.addEmployees(roster);
+            schedule.generateSchedule();
+            matches += schedule.countPreferenceMatches();
+        }
+        return matches;
+    }
+    
+    @Benchmark
+    public int service() {
+        int matches = 0;
+        for (CompletableFuture<ScheduleService.SiteResult> result : service.submitAll(rosters).values()) {
+            matches += result.join().getSchedule().countPreferenceMatches();
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,60 @@
+package scheduler;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+// Greedy against the min-cost flow solver and the multi-start greedy on the same rosters.
+// Sizes stop at 10k because the flow solver is meant for rosters of that order, not for the 1M case.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StrategyBenchmark {
+    public enum Strategy {
+        GREEDY,
+        MIN_COST_FLOW,
+        MULTI_START,
+        LOCAL_SEARCH // Greedy plus one million local-search moves
+    }
+    
+    @Param({"10", "1000", "10000"})
+    public int rosterSize;
+    
+    @Param({"UNIFORM", "ALL_MORNING", "SPARSE"})
+    public Rosters.PreferenceDistribution distribution;
+    
+    @Param({"GREEDY", "MIN_COST_FLOW", "MULTI_START", "LOCAL_SEARCH"})
+    public Strategy strategy;
+    
+    private Schedule schedule;
+    
+    @Setup(Level.Trial)
+    public void buildRoster() {
+        schedule = Rosters.schedule(rosterSize, distribution);
+        switch (strategy) {
+            case GREEDY:
+                schedule.setStrategy(new GreedySchedulingStrategy());
+                break;
+            case MIN_COST_FLOW:
+                schedule.setStrategy(new MinCostFlowSchedulingStrategy());
+                break;
+            case MULTI_START:
+                schedule.setStrategy(new MultiStartSchedulingStrategy());
+                break;
+            case LOCAL_SEARCH:
+                schedule.setStrategy(new LocalSearchSchedulingStrategy(new GreedySchedulingStrategy(),
+                    new LocalSearchOptimizer(632L, Duration.ofMinutes(1), 1_000_000, 10, 1)));
+                break;
+        }
+    }
+    
+    @Benchmark
+    public Schedule generateSchedule() {
+        schedule.generateSchedule();
+        return schedule;
+    }
+}
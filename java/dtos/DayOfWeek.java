@@ -1,5 +1,7 @@
 package dtos;
 
+import java.time.LocalDate;
+
 public enum DayOfWeek {
     MONDAY("Monday"),
     TUESDAY("Tuesday"),
@@ -19,6 +21,11 @@ public enum DayOfWeek {
         return displayName;
     }
     
+    // Day of the week a calendar date falls on
+    public static DayOfWeek of(LocalDate date) {
+        return values()[date.getDayOfWeek().ordinal()];
+    }
+    
     @Override
     public String toString() {
         return displayName;
@@ -3,68 +3,166 @@ package dtos;
 import java.util.*;
 
 public class Employee {
-    private String name;
-    private Map<DayOfWeek, List<Shift>> preferences; // Stores preferred shifts for each day
-    private Map<DayOfWeek, Shift> assignedShifts;    // Stores actual assigned shifts
-    private int daysWorked;
+    // Read-only views shared by every employee: one per possible preference mask and assigned-days mask
+    private static final List<List<Shift>> PREFERENCE_VIEWS = buildPreferenceViews();
+    private static final List<Set<DayOfWeek>> ASSIGNED_DAY_VIEWS = buildAssignedDayViews();
+    private static final List<Set<Role>> ROLE_VIEWS = buildRoleViews();
     
+    private final EmployeeStore store; // Preferences, assignments and days worked live in the store row
+    private final int row;
+    private List<PreferenceListener> preferenceListeners; // Created on first registration
+    private List<RoleListener> roleListeners; // Likewise
+    
+    // Standalone employee backed by its own one-row store
     public Employee(String name) {
-        this.name = name;
-        this.preferences = new HashMap<>();
-        this.assignedShifts = new HashMap<>();
-        this.daysWorked = 0;
-        
-        // Initialize preferences for all days
-        for (DayOfWeek day : DayOfWeek.values()) {
-            preferences.put(day, new ArrayList<>());
-        }
+        this.store = new EmployeeStore(1);
+        this.row = store.addRow(name);
+    }
+    
+    // Flyweight over an existing store row (see EmployeeStore.add)
+    Employee(EmployeeStore store, int row) {
+        this.store = store;
+        this.row = row;
     }
     
     public String getName() {
-        return name;
+        return store.name(row);
+    }
+    
+    public EmployeeStore getStore() {
+        return store;
+    }
+    
+    public int getRow() {
+        return row;
     }
     
     // Add a preferred shift for a specific day
     public void addPreference(DayOfWeek day, Shift shift) {
-        preferences.get(day).add(shift);
+        boolean isNew = store.addPreference(row, day, shift);
+        if (isNew && preferenceListeners != null) {
+            for (PreferenceListener listener : preferenceListeners) {
+                listener.preferenceAdded(this, day, shift);
+            }
+        }
+    }
+    
+    // Remove a preferred shift for a specific day
+    public void removePreference(DayOfWeek day, Shift shift) {
+        boolean wasSet = store.removePreference(row, day, shift);
+        if (wasSet && preferenceListeners != null) {
+            for (PreferenceListener listener : preferenceListeners) {
+                listener.preferenceRemoved(this, day, shift);
+            }
+        }
+    }
+    
+    // Register a listener to be told about added and removed preferences
+    public void addPreferenceListener(PreferenceListener listener) {
+        if (preferenceListeners == null) {
+            preferenceListeners = new ArrayList<>(1);
+        }
+        preferenceListeners.add(listener);
+    }
+    
+    public void removePreferenceListener(PreferenceListener listener) {
+        if (preferenceListeners != null) {
+            preferenceListeners.remove(listener);
+        }
+    }
+    
+    // Register a listener to be told when roles are added or removed
+    public void addRoleListener(RoleListener listener) {
+        if (roleListeners == null) {
+            roleListeners = new ArrayList<>(1);
+        }
+        roleListeners.add(listener);
+    }
+    
+    public void removeRoleListener(RoleListener listener) {
+        if (roleListeners != null) {
+            roleListeners.remove(listener);
+        }
     }
     
-    // Get preferred shifts for a specific day
+    // Get preferred shifts for a specific day (read-only view, in shift order)
     public List<Shift> getPreferences(DayOfWeek day) {
-        return new ArrayList<>(preferences.get(day));
+        return PREFERENCE_VIEWS.get(store.preferenceMask(row, day));
+    }
+    
+    // Check if employee prefers a shift on a day
+    public boolean prefersShift(DayOfWeek day, Shift shift) {
+        return (store.preferenceMask(row, day) & (1 << shift.ordinal())) != 0;
     }
     
     // Check if employee has any preferences for a day
     public boolean hasPreferences(DayOfWeek day) {
-        return !preferences.get(day).isEmpty();
+        return store.preferenceMask(row, day) != 0;
+    }
+    
+    // Give the employee a role (skill) that shifts may require
+    public void addRole(Role role) {
+        setRoleMask(store.roleMask(row) | role.bit());
+    }
+    
+    public void removeRole(Role role) {
+        setRoleMask(store.roleMask(row) & ~role.bit());
+    }
+    
+    private void setRoleMask(int mask) {
+        int previous = store.roleMask(row);
+        if (mask == previous) {
+            return;
+        }
+        store.setRoleMask(row, mask);
+        if (roleListeners != null) {
+            for (RoleListener listener : roleListeners) {
+                listener.rolesChanged(this, previous);
+            }
+        }
+    }
+    
+    public boolean hasRole(Role role) {
+        return (store.roleMask(row) & role.bit()) != 0;
+    }
+    
+    // Roles held (read-only view, in role order)
+    public Set<Role> getRoles() {
+        return ROLE_VIEWS.get(store.roleMask(row));
     }
     
     // Assign a shift to the employee for a specific day
     public void assignShift(DayOfWeek day, Shift shift) {
         if (!isAssigned(day)) {
-            assignedShifts.put(day, shift);
-            daysWorked++;
+            store.assign(row, day, shift);
+        }
+    }
+    
+    // Take the employee off their shift for a specific day
+    public void unassignShift(DayOfWeek day) {
+        if (isAssigned(day)) {
+            store.unassign(row, day);
         }
     }
     
     // Check if employee is already assigned on a specific day
     public boolean isAssigned(DayOfWeek day) {
-        return assignedShifts.containsKey(day);
+        return store.assignedShift(row, day) != null;
     }
     
     // Get assigned shift for a specific day
     public Shift getAssignedShift(DayOfWeek day) {
-        return assignedShifts.get(day);
+        return store.assignedShift(row, day);
     }
     
     // Get number of days worked
     public int getDaysWorked() {
-        return daysWorked;
+        return store.daysWorked(row);
     }
     
     // Check if employee can work more days (max 5 days per week)
     public boolean canWorkMoreDays() {
-        return daysWorked < 5;
+        return getDaysWorked() < 5;
     }
     
     // Check if employee is available for a specific day
@@ -74,18 +172,62 @@ public class Employee {
     
     // Clear all assignments (useful for regenerating schedule)
     public void clearAssignments() {
-        assignedShifts.clear();
-        daysWorked = 0;
+        store.clearAssignments(row);
     }
     
-    // Get all assigned days
+    // Get all assigned days (read-only view)
     public Set<DayOfWeek> getAssignedDays() {
-        return new HashSet<>(assignedShifts.keySet());
+        return ASSIGNED_DAY_VIEWS.get(store.assignedDaysMask(row));
+    }
+    
+    private static List<List<Shift>> buildPreferenceViews() {
+        Shift[] shifts = Shift.values();
+        List<List<Shift>> views = new ArrayList<>();
+        for (int mask = 0; mask < (1 << shifts.length); mask++) {
+            List<Shift> view = new ArrayList<>();
+            for (Shift shift : shifts) {
+                if ((mask & (1 << shift.ordinal())) != 0) {
+                    view.add(shift);
+                }
+            }
+            views.add(Collections.unmodifiableList(view));
+        }
+        return views;
+    }
+    
+    private static List<Set<DayOfWeek>> buildAssignedDayViews() {
+        DayOfWeek[] days = DayOfWeek.values();
+        List<Set<DayOfWeek>> views = new ArrayList<>();
+        for (int mask = 0; mask < (1 << days.length); mask++) {
+            Set<DayOfWeek> view = EnumSet.noneOf(DayOfWeek.class);
+            for (DayOfWeek day : days) {
+                if ((mask & (1 << day.ordinal())) != 0) {
+                    view.add(day);
+                }
+            }
+            views.add(Collections.unmodifiableSet(view));
+        }
+        return views;
+    }
+    
+    private static List<Set<Role>> buildRoleViews() {
+        Role[] roles = Role.values();
+        List<Set<Role>> views = new ArrayList<>();
+        for (int mask = 0; mask < (1 << roles.length); mask++) {
+            Set<Role> view = EnumSet.noneOf(Role.class);
+            for (Role role : roles) {
+                if ((mask & role.bit()) != 0) {
+                    view.add(role);
+                }
+            }
+            views.add(Collections.unmodifiableSet(view));
+        }
+        return views;
     }
     
     @Override
     public String toString() {
-        return name;
+        return getName();
     }
     
     @Override
@@ -93,11 +235,11 @@ public class Employee {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         Employee employee = (Employee) obj;
-        return Objects.equals(name, employee.name);
+        return Objects.equals(getName(), employee.getName());
     }
     
     @Override
     public int hashCode() {
-        return Objects.hash(name);
+        return Objects.hash(getName());
     }
 } 
\ No newline at end of file
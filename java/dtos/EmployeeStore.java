@@ -0,0 +1,133 @@
+package dtos;
+
+import java.util.*;
+
+// Struct-of-arrays storage for employees. One row per employee holds:
+//   - preferences: 3 bits per day (one per shift), 21 bits in one int
+//   - assignments: 2 bits per day (0 = unassigned, otherwise shift ordinal + 1), 14 bits in one int
+//   - days worked: one byte
+//   - roles: one bit per Role, in a byte
+// Employee objects are flyweights over a row. Not thread-safe, like the rest of the dtos.
+public class EmployeeStore {
+    private static final int SHIFTS_PER_DAY = Shift.values().length;
+    private static final int SHIFT_MASK = (1 << SHIFTS_PER_DAY) - 1;
+    private static final int ASSIGNMENT_BITS = 2;
+    private static final int ASSIGNMENT_MASK = (1 << ASSIGNMENT_BITS) - 1;
+
+    private String[] names;
+    private int[] preferenceBits;
+    private int[] assignmentBits;
+    private byte[] daysWorked;
+    private byte[] roleBits;
+    private int size;
+
+    public EmployeeStore() {
+        this(16);
+    }
+
+    public EmployeeStore(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        this.names = new String[capacity];
+        this.preferenceBits = new int[capacity];
+        this.assignmentBits = new int[capacity];
+        this.daysWorked = new byte[capacity];
+        this.roleBits = new byte[capacity];
+    }
+
+    // Add a new employee row and return its flyweight
+    public Employee add(String name) {
+        return new Employee(this, addRow(name));
+    }
+
+    int addRow(String name) {
+        if (size == names.length) {
+            int capacity = names.length + (names.length >> 1) + 1;
+            names = Arrays.copyOf(names, capacity);
+            preferenceBits = Arrays.copyOf(preferenceBits, capacity);
+            assignmentBits = Arrays.copyOf(assignmentBits, capacity);
+            daysWorked = Arrays.copyOf(daysWorked, capacity);
+            roleBits = Arrays.copyOf(roleBits, capacity);
+        }
+        names[size] = name;
+        return size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String name(int row) {
+        return names[row];
+    }
+
+    // Preferred shifts for a day as a 3-bit mask (bit = shift ordinal)
+    public int preferenceMask(int row, DayOfWeek day) {
+        return (preferenceBits[row] >>> (day.ordinal() * SHIFTS_PER_DAY)) & SHIFT_MASK;
+    }
+
+    // Returns true if the preference was not already set
+    boolean addPreference(int row, DayOfWeek day, Shift shift) {
+        int bit = 1 << (day.ordinal() * SHIFTS_PER_DAY + shift.ordinal());
+        if ((preferenceBits[row] & bit) != 0) {
+            return false;
+        }
+        preferenceBits[row] |= bit;
+        return true;
+    }
+
+    // Returns true if the preference was set
+    boolean removePreference(int row, DayOfWeek day, Shift shift) {
+        int bit = 1 << (day.ordinal() * SHIFTS_PER_DAY + shift.ordinal());
+        if ((preferenceBits[row] & bit) == 0) {
+            return false;
+        }
+        preferenceBits[row] &= ~bit;
+        return true;
+    }
+
+    // Assigned shift for a day, or null when the employee is off
+    public Shift assignedShift(int row, DayOfWeek day) {
+        int code = (assignmentBits[row] >>> (day.ordinal() * ASSIGNMENT_BITS)) & ASSIGNMENT_MASK;
+        return code == 0 ? null : Shift.values()[code - 1];
+    }
+
+    // Assigned days as a 7-bit mask (bit = day ordinal)
+    public int assignedDaysMask(int row) {
+        int bits = assignmentBits[row];
+        int mask = 0;
+        for (int d = 0; d < DayOfWeek.values().length; d++) {
+            if (((bits >>> (d * ASSIGNMENT_BITS)) & ASSIGNMENT_MASK) != 0) {
+                mask |= 1 << d;
+            }
+        }
+        return mask;
+    }
+
+    void assign(int row, DayOfWeek day, Shift shift) {
+        assignmentBits[row] |= (shift.ordinal() + 1) << (day.ordinal() * ASSIGNMENT_BITS);
+        daysWorked[row]++;
+    }
+
+    void unassign(int row, DayOfWeek day) {
+        assignmentBits[row] &= ~(ASSIGNMENT_MASK << (day.ordinal() * ASSIGNMENT_BITS));
+        daysWorked[row]--;
+    }
+
+    public int daysWorked(int row) {
+        return daysWorked[row];
+    }
+
+    // Roles held as a mask (bit = role ordinal, see Role.bit)
+    public int roleMask(int row) {
+        return roleBits[row];
+    }
+
+    void setRoleMask(int row, int mask) {
+        roleBits[row] = (byte) mask;
+    }
+
+    void clearAssignments(int row) {
+        assignmentBits[row] = 0;
+        daysWorked[row] = 0;
+    }
+}
@@ -0,0 +1,8 @@
+package dtos;
+
+// Notified whenever an employee gains a preferred shift it did not have before, or loses one it had
+public interface PreferenceListener {
+    void preferenceAdded(Employee employee, DayOfWeek day, Shift shift);
+    
+    void preferenceRemoved(Employee employee, DayOfWeek day, Shift shift);
+}
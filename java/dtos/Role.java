@@ -0,0 +1,43 @@
+package dtos;
+
+public enum Role {
+    KEYHOLDER("Keyholder", "keyholder", "key", "k"),
+    CASHIER("Cashier", "cashier", "c"),
+    SUPERVISOR("Supervisor", "supervisor", "s"),
+    FIRST_AIDER("First aider", "first aider", "first-aider", "firstaider", "f");
+    
+    private final String displayName;
+    private final String[] inputTokens; // Lower-case spellings accepted from users and roster files
+    
+    Role(String displayName, String... inputTokens) {
+        this.displayName = displayName;
+        this.inputTokens = inputTokens;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+    
+    // Bit of this role in a role mask (see EmployeeStore.roleMask)
+    public int bit() {
+        return 1 << ordinal();
+    }
+    
+    // Parse user input such as "keyholder" or "k" (any case); null if not recognised
+    public static Role fromInput(String input) {
+        String token = input.trim().toLowerCase();
+        for (Role role : values()) {
+            for (String accepted : role.inputTokens) {
+                if (accepted.equals(token)) {
+                    return role;
+                }
+            }
+        }
+        return null;
+    }
+    
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
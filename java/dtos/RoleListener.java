@@ -0,0 +1,7 @@
+package dtos;
+
+// Notified whenever an employee's roles change; previousRoles is the role mask before the change
+// (see EmployeeStore.roleMask)
+public interface RoleListener {
+    void rolesChanged(Employee employee, int previousRoles);
+}
@@ -1,20 +1,39 @@
 package dtos;
 
 public enum Shift {
-    MORNING("Morning"),
-    AFTERNOON("Afternoon"),
-    EVENING("Evening");
+    MORNING("Morning", "morning", "m", "1"),
+    AFTERNOON("Afternoon", "afternoon", "a", "2"),
+    EVENING("Evening", "evening", "e", "3");
     
     private final String displayName;
+    private final String[] inputTokens; // Lower-case spellings accepted from users and roster files
     
-    Shift(String displayName) {
+    Shift(String displayName, String... inputTokens) {
         this.displayName = displayName;
+        this.inputTokens = inputTokens;
     }
     
     public String getDisplayName() {
         return displayName;
     }
     
+    public String[] getInputTokens() {
+        return inputTokens.clone();
+    }
+    
+    // Parse user input such as "morning", "m" or "1" (any case); null if not recognised
+    public static Shift fromInput(String input) {
+        String token = input.trim().toLowerCase();
+        for (Shift shift : values()) {
+            for (String accepted : shift.inputTokens) {
+                if (accepted.equals(token)) {
+                    return shift;
+                }
+            }
+        }
+        return null;
+    }
+    
     @Override
     public String toString() {
         return displayName;
@@ -0,0 +1,178 @@
+package scheduler;
+
+import dtos.Employee;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+
+// Headless entry point for nightly jobs: load a roster file, solve, print the schedule and exit.
+//
+//   java scheduler.BatchScheduler <roster.csv|roster.bin> [--strategy greedy|min-cost-flow|multi-start|local-search]
+//                                 [--parallel] [--staffing <levels.csv>] [--roles <roles.csv>]
+//                                 [--write-binary <out.bin>] [--write-state <out.ess>]
+//                                 [--export <out.csv|out.json|out.ics>[.gz]]... [--weeks <n> [--start <yyyy-mm-dd>]]
+//
+// See RosterFiles for the accepted roster and roles formats, StaffingLevels for the staffing file and
+// ScheduleExports for the export formats; a calendar export is dated from --start. Exits with
+// status 1 on bad input.
+public class BatchScheduler {
+    public static void main(String[] args) {
+        try {
+            System.exit(run(args));
+        } catch (IOException | IllegalArgumentException | DateTimeParseException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+    
+    static int run(String[] args) throws IOException {
+        Path rosterFile = null;
+        Path binaryOutput = null;
+        Path stateOutput = null;
+        Path staffingFile = null;
+        Path rolesFile = null;
+        List<Path> exports = new ArrayList<>();
+        SchedulingStrategy strategy = new GreedySchedulingStrategy();
+        boolean parallel = false;
+        int weeks = 0;
+        LocalDate startDate = LocalDate.now().with(TemporalAdjusters.next(java.time.DayOfWeek.MONDAY));
+        
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--strategy":
+                    strategy = parseStrategy(argumentAfter(args, i++));
+                    break;
+                case "--parallel":
+                    parallel = true;
+                    break;
+                case "--weeks":
+                    weeks = Integer.parseInt(argumentAfter(args, i++));
+                    break;
+                case "--start":
+                    startDate = LocalDate.parse(argumentAfter(args, i++));
+                    break;
+                case "--staffing":
+                    staffingFile = Paths.get(argumentAfter(args, i++));
+                    break;
+                case "--roles":
+                    rolesFile = Paths.get(argumentAfter(args, i++));
+                    break;
+                case "--write-binary":
+                    binaryOutput = Paths.get(argumentAfter(args, i++));
+                    break;
+                case "--write-state":
+                    stateOutput = Paths.get(argumentAfter(args, i++));
+                    break;
+                case "--export":
+                    exports.add(Paths.get(argumentAfter(args, i++)));
+                    break;
+                default:
+                    if (args[i].startsWith("--") || rosterFile != null) {
+                        throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+                    }
+                    rosterFile = Paths.get(args[i]);
+                    break;
+            }
+        }
+        if (rosterFile == null) {
+            System.err.println("Usage: BatchScheduler <roster.csv|roster.bin> [--strategy greedy|min-cost-flow|multi-start|local-search]"
+                + " [--parallel] [--staffing <levels.csv>] [--roles <roles.csv>] [--write-binary <out.bin>] [--write-state <out.ess>]"
+                + " [--export <out.csv|out.json|out.ics>[.gz]]... [--weeks <n> [--start <yyyy-mm-dd>]]");
+            return 1;
+        }
+        
+        long start = System.nanoTime();
+        RosterFiles.Roster roster = RosterFiles.read(rosterFile);
+        Schedule schedule = new Schedule(strategy);
+        if (staffingFile != null) {
+            schedule.setStaffing(StaffingLevels.read(staffingFile));
+        }
+        List<Employee> duplicates = schedule.addEmployees(roster.getEmployees());
+        System.out.printf("Loaded %d employees and %d preference rows from %s in %d ms%n",
+            roster.getEmployees().size() - duplicates.size(), roster.getPreferenceRows(), rosterFile,
+            (System.nanoTime() - start) / 1_000_000);
+        if (!duplicates.isEmpty()) {
+            System.out.println("Skipped " + duplicates.size() + " duplicate employee name(s)");
+        }
+        if (rolesFile != null) {
+            System.out.println("Read roles for " + RosterFiles.readRoles(rolesFile, schedule.getEmployees())
+                + " employees from " + rolesFile);
+        }
+        
+        if (binaryOutput != null) {
+            RosterFiles.writeBinary(binaryOutput, schedule.getEmployees());
+            System.out.println("Wrote binary roster to " + binaryOutput);
+        }
+        
+        if (weeks > 0) {
+            if (!exports.isEmpty() || staffingFile != null) {
+                throw new IllegalArgumentException((staffingFile != null ? "--staffing" : "--export")
+                    + " applies to the weekly schedule, not to --weeks");
+            }
+            return runHorizon(schedule.getEmployees(), startDate, weeks);
+        }
+        
+        start = System.nanoTime();
+        if (parallel) {
+            schedule.generateScheduleInParallel();
+        } else {
+            schedule.generateSchedule();
+        }
+        System.out.printf("Solved with %s in %d ms%n", parallel ? "parallel engine" : strategy.getName(),
+            (System.nanoTime() - start) / 1_000_000);
+        
+        if (stateOutput != null) {
+            ScheduleFiles.write(stateOutput, schedule.getSnapshot());
+            System.out.println("Wrote solved schedule to " + stateOutput);
+        }
+        for (Path export : exports) {
+            start = System.nanoTime();
+            ScheduleExports.write(export, schedule.getSnapshot(), startDate);
+            System.out.printf("Exported to %s in %d ms%n", export, (System.nanoTime() - start) / 1_000_000);
+        }
+        
+        schedule.printSchedule();
+        return 0;
+    }
+    
+    // Multi-week plan with the rolling 7-day limit instead of the weekly schedule
+    private static int runHorizon(List<Employee> employees, LocalDate startDate, int weeks) {
+        HorizonSchedule horizon = HorizonSchedule.ofWeeks(startDate, weeks);
+        horizon.addEmployees(employees);
+        long start = System.nanoTime();
+        horizon.generateSchedule();
+        System.out.printf("Planned %d weeks from %s in %d ms%n", weeks, startDate,
+            (System.nanoTime() - start) / 1_000_000);
+        horizon.printSchedule();
+        return 0;
+    }
+    
+    private static String argumentAfter(String[] args, int i) {
+        if (i + 1 >= args.length) {
+            throw new IllegalArgumentException(args[i] + " needs a value");
+        }
+        return args[i + 1];
+    }
+    
+    private static SchedulingStrategy parseStrategy(String name) {
+        switch (name.toLowerCase()) {
+            case "greedy":
+                return new GreedySchedulingStrategy();
+            case "min-cost-flow": case "flow":
+                return new MinCostFlowSchedulingStrategy();
+            case "multi-start":
+                return new MultiStartSchedulingStrategy();
+            case "local-search":
+                return new LocalSearchSchedulingStrategy(Duration.ofMillis(500));
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + name);
+        }
+    }
+}
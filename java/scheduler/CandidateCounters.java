@@ -0,0 +1,11 @@
+package scheduler;
+
+// Running totals of candidate searches for one Schedule, kept across CandidateIndex rebuilds.
+// Plain fields: Schedule is single-threaded and an increment is all they cost.
+class CandidateCounters {
+    long lookups;        // findBest calls
+    long bucketsScanned; // days-worked buckets probed by those calls
+    long preferredPicks; // answered from the employees preferring the slot
+    long fallbackPicks;  // answered from everyone else free that day
+    long failedFills;    // slot fills that ended below their target for lack of candidates
+}
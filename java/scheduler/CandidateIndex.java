@@ -0,0 +1,309 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Role;
+import dtos.Shift;
+
+import java.util.*;
+
+// Index of assignable employees used by Schedule to pick the next candidate for a slot
+// without rescanning the roster. Employees are identified by their position in the roster,
+// which is also the tie-break the greedy has always used (first employee wins on equal days worked).
+// Roles are read when an employee is indexed and kept as one BitSet of holders per role, so a
+// lookup needing a role intersects that set with the usual buckets a word at a time instead of
+// testing members one by one. Per day, the index also counts the free holders of each role, which
+// is how scarce a role is that day.
+class CandidateIndex {
+    private Employee[] roster;
+    private int size;
+    private final Map<Employee, Integer> ids;
+    private final int levels;
+    private final BitSet[][] available;   // [day][daysWorked] -> employees free on that day
+    private final BitSet[][][] preferred; // [day][shift][daysWorked] -> free employees preferring that shift
+    private int[] roles;                  // [id] -> Role bits
+    private final BitSet[] holders;       // [role] -> employees holding it, free or not
+    private final BitSet anyHolder = new BitSet(); // Scratch: holders of any role in a lookup's mask
+    private final BitSet match = new BitSet();     // Scratch: one bucket intersected with anyHolder
+    private final int[][] freeHolders;    // [day][role] -> employees free on that day holding the role
+    private final CandidateCounters counters;
+
+    CandidateIndex(List<Employee> employees, PreferenceIndex preferences, int maxDaysPerEmployee,
+                   CandidateCounters counters) {
+        this.counters = counters;
+        this.roster = employees.toArray(new Employee[0]);
+        this.size = roster.length;
+        this.ids = new HashMap<>(roster.length * 2);
+        this.levels = maxDaysPerEmployee;
+        this.roles = new int[roster.length];
+
+        DayOfWeek[] days = DayOfWeek.values();
+        Shift[] shifts = Shift.values();
+        this.available = new BitSet[days.length][levels];
+        this.preferred = new BitSet[days.length][shifts.length][levels];
+        this.freeHolders = new int[days.length][Role.values().length];
+        this.holders = new BitSet[Role.values().length];
+        for (int r = 0; r < holders.length; r++) {
+            holders[r] = new BitSet();
+        }
+        for (int d = 0; d < days.length; d++) {
+            for (int level = 0; level < levels; level++) {
+                available[d][level] = new BitSet(roster.length);
+                for (int s = 0; s < shifts.length; s++) {
+                    preferred[d][s][level] = new BitSet();
+                }
+            }
+        }
+
+        for (int id = 0; id < roster.length; id++) {
+            Employee employee = roster[id];
+            ids.put(employee, id);
+            roles[id] = employee.getStore().roleMask(employee.getRow());
+            setHolder(id, true);
+            int level = employee.getDaysWorked();
+            if (level >= levels) {
+                continue;
+            }
+            for (int d = 0; d < days.length; d++) {
+                if (employee.isAvailable(days[d])) {
+                    available[d][level].set(id);
+                    countHolders(d, id, 1);
+                }
+            }
+        }
+
+        // Preferred buckets come straight from the inverted lists instead of asking every employee
+        for (int d = 0; d < days.length; d++) {
+            for (int s = 0; s < shifts.length; s++) {
+                for (Employee employee : preferences.employeesPreferring(days[d], shifts[s])) {
+                    Integer id = ids.get(employee);
+                    int level = employee.getDaysWorked();
+                    if (id != null && level < levels && available[d][level].get(id)) {
+                        preferred[d][s][level].set(id);
+                    }
+                }
+            }
+        }
+    }
+
+    // Best candidate for a slot: employees preferring the shift first, then fewest days worked,
+    // then roster order. Returns null when nobody is free on that day.
+    Employee findBest(DayOfWeek day, Shift shift) {
+        return findBest(day, shift, null);
+    }
+
+    // Same, but given a random source, ties within the best bucket go to a random member instead
+    Employee findBest(DayOfWeek day, Shift shift, SplittableRandom random) {
+        counters.lookups++;
+        int id = firstCandidate(preferred[day.ordinal()][shift.ordinal()], random);
+        if (id >= 0) {
+            counters.preferredPicks++;
+            return roster[id];
+        }
+        id = firstCandidate(available[day.ordinal()], random);
+        if (id >= 0) {
+            counters.fallbackPicks++;
+            return roster[id];
+        }
+        return null;
+    }
+
+    // Best candidate holding at least one of the roles in roleMask, in the same order; null when no
+    // such holder is free on that day
+    Employee findBest(DayOfWeek day, Shift shift, int roleMask, SplittableRandom random) {
+        counters.lookups++;
+        int free = 0;
+        anyHolder.clear();
+        for (int roles = roleMask; roles != 0; roles &= roles - 1) {
+            int role = Integer.numberOfTrailingZeros(roles);
+            free += freeHolders[day.ordinal()][role];
+            anyHolder.or(holders[role]);
+        }
+        if (free == 0) {
+            return null;
+        }
+        int id = firstHolder(preferred[day.ordinal()][shift.ordinal()], random);
+        if (id >= 0) {
+            counters.preferredPicks++;
+            return roster[id];
+        }
+        id = firstHolder(available[day.ordinal()], random);
+        if (id >= 0) {
+            counters.fallbackPicks++;
+            return roster[id];
+        }
+        return null;
+    }
+
+    // Employees free on a day who hold a role
+    int freeHolders(DayOfWeek day, Role role) {
+        return freeHolders[day.ordinal()][role.ordinal()];
+    }
+
+    private int firstCandidate(BitSet[] byDaysWorked, SplittableRandom random) {
+        for (BitSet bucket : byDaysWorked) {
+            counters.bucketsScanned++;
+            if (bucket.isEmpty()) {
+                continue;
+            }
+            return random == null ? bucket.nextSetBit(0) : randomMember(bucket, random);
+        }
+        return -1;
+    }
+
+    // firstCandidate over each bucket intersected with anyHolder (set up by findBest)
+    private int firstHolder(BitSet[] byDaysWorked, SplittableRandom random) {
+        for (BitSet bucket : byDaysWorked) {
+            counters.bucketsScanned++;
+            if (!bucket.intersects(anyHolder)) {
+                continue;
+            }
+            match.clear();
+            match.or(bucket);
+            match.and(anyHolder);
+            return random == null ? match.nextSetBit(0) : randomMember(match, random);
+        }
+        return -1;
+    }
+
+    // Every member equally likely: the k-th set bit for k drawn from [0, cardinality). A random
+    // start position followed by nextSetBit would favour members after long runs of clear bits.
+    private static int randomMember(BitSet members, SplittableRandom random) {
+        long[] words = members.toLongArray();
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        int k = random.nextInt(count);
+        for (int w = 0; ; w++) {
+            int inWord = Long.bitCount(words[w]);
+            if (k < inWord) {
+                long word = words[w];
+                for (; k > 0; k--) {
+                    word &= word - 1;
+                }
+                return w * Long.SIZE + Long.numberOfTrailingZeros(word);
+            }
+            k -= inWord;
+        }
+    }
+    
+    private void setHolder(int id, boolean holds) {
+        for (int mask = roles[id]; mask != 0; mask &= mask - 1) {
+            holders[Integer.numberOfTrailingZeros(mask)].set(id, holds);
+        }
+    }
+
+    private void countHolders(int d, int id, int delta) {
+        for (int mask = roles[id]; mask != 0; mask &= mask - 1) {
+            freeHolders[d][Integer.numberOfTrailingZeros(mask)] += delta;
+        }
+    }
+
+    // Index an employee who joined the roster after the index was built
+    void add(Employee employee) {
+        if (ids.containsKey(employee)) {
+            return;
+        }
+        if (size == roster.length) {
+            roster = Arrays.copyOf(roster, roster.length + (roster.length >> 1) + 1);
+            roles = Arrays.copyOf(roles, roster.length);
+        }
+        int id = size++;
+        roster[id] = employee;
+        ids.put(employee, id);
+        place(id);
+    }
+
+    // Forget an employee leaving the roster; their id is never reused
+    void remove(Employee employee) {
+        Integer id = ids.remove(employee);
+        if (id != null) {
+            clear(id);
+            setHolder(id, false);
+            roster[id] = null;
+        }
+    }
+
+    // Re-index one employee after an arbitrary change (unassignment, preference or role edits)
+    void refresh(Employee employee) {
+        Integer id = ids.get(employee);
+        if (id != null) {
+            clear(id);
+            place(id);
+        }
+    }
+
+    private void clear(int id) {
+        for (int d = 0; d < available.length; d++) {
+            for (int level = 0; level < levels; level++) {
+                if (available[d][level].get(id)) {
+                    countHolders(d, id, -1);
+                }
+                available[d][level].clear(id);
+                for (BitSet[] byDaysWorked : preferred[d]) {
+                    byDaysWorked[level].clear(id);
+                }
+            }
+        }
+    }
+
+    private void place(int id) {
+        Employee employee = roster[id];
+        setHolder(id, false);
+        roles[id] = employee.getStore().roleMask(employee.getRow());
+        setHolder(id, true);
+        int level = employee.getDaysWorked();
+        if (level >= levels) {
+            return;
+        }
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (!employee.isAvailable(day)) {
+                continue;
+            }
+            available[day.ordinal()][level].set(id);
+            countHolders(day.ordinal(), id, 1);
+            for (Shift shift : Shift.values()) {
+                if (employee.prefersShift(day, shift)) {
+                    preferred[day.ordinal()][shift.ordinal()][level].set(id);
+                }
+            }
+        }
+    }
+
+    // Must be called right after employee.assignShift(day, ...) so the buckets follow its new days worked
+    void recordAssignment(Employee employee, DayOfWeek day) {
+        Integer id = ids.get(employee);
+        if (id == null) {
+            return;
+        }
+        int newLevel = employee.getDaysWorked();
+        int oldLevel = newLevel - 1;
+        if (oldLevel < 0 || oldLevel >= levels) {
+            return;
+        }
+
+        for (DayOfWeek other : DayOfWeek.values()) {
+            int d = other.ordinal();
+            boolean stillFree = other != day && newLevel < levels;
+            if (move(available[d], id, oldLevel, newLevel, stillFree) && !stillFree) {
+                countHolders(d, id, -1);
+            }
+            for (BitSet[] byDaysWorked : preferred[d]) {
+                move(byDaysWorked, id, oldLevel, newLevel, stillFree);
+            }
+        }
+    }
+
+    // Returns true if the employee was in the bucket
+    private boolean move(BitSet[] byDaysWorked, int id, int oldLevel, int newLevel, boolean stillFree) {
+        if (!byDaysWorked[oldLevel].get(id)) {
+            return false;
+        }
+        byDaysWorked[oldLevel].clear(id);
+        if (stillFree) {
+            byDaysWorked[newLevel].set(id);
+        }
+        return true;
+    }
+}
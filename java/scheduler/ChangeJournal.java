@@ -0,0 +1,407 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.EmployeeStore;
+import dtos.Shift;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+// Append-only log of roster and preference changes (ScheduleChange) made since the last saved
+// schedule (ScheduleFiles), so they survive a crash.
+//
+// Group commit: append only encodes the change into a buffer and returns its sequence number.
+// A flusher thread writes whatever has accumulated (waiting up to the commit window for more)
+// and fsyncs once per batch; awaitDurable/sync block until a sequence number is on disk.
+//
+// Binary ("ESJ1"), big-endian: int magic, int format version, long baseline (the CRC32C of the
+// ScheduleFiles state the changes apply to, or NO_BASELINE), then records of
+//   int payload length, int CRC32C of the payload,
+//   payload: byte change type, unsigned short UTF-8 name length, the name bytes, then
+//            an int of preference bits for EMPLOYEE_ADDED, or a day and a shift byte for preferences.
+// A crash can leave a torn record at the end: replay stops at the first record that is short or
+// fails its CRC, and opening the journal for writing cuts it off.
+//
+// Roles are not journaled: they are not part of a ScheduleChange (role edits go straight to
+// Employee.addRole/removeRole) nor of the ScheduleFiles state, so an employee added through the
+// journal comes back with preferences only, and roles given during a session are lost on restart.
+// Roles are loaded for batch runs only (RosterFiles.readRoles).
+//
+// Compaction saves the current schedule and starts an empty journal whose baseline is that save,
+// so a journal left over from before the save no longer matches and is ignored on replay.
+public class ChangeJournal implements AutoCloseable {
+    static final int MAGIC = 0x45534A31; // "ESJ1"
+    static final int FORMAT_VERSION = 1;
+    public static final long NO_BASELINE = -1;
+
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final ScheduleChange.Type[] TYPES = ScheduleChange.Type.values();
+
+    private final Path file;
+    private final long commitWindowNanos;
+    private final Thread flusher;
+    private final CRC32C checksum = new CRC32C(); // Used under the lock by append
+
+    private FileChannel channel;
+    private ByteBuffer pending = newBuffer(1 << 16);  // Encoded, not yet written
+    private ByteBuffer writing = newBuffer(1 << 16);  // Owned by the flusher while it writes
+    private long appended;   // Sequence number of the last append
+    private long durable;    // Sequence number of the last append known to be on disk
+    private boolean flushing;
+    private boolean closed;
+    private IOException failure; // Sticky: once a write fails, appends fail too
+
+    private ChangeJournal(Path file, FileChannel channel, Duration commitWindow) {
+        this.file = file;
+        this.channel = channel;
+        this.commitWindowNanos = commitWindow.toNanos();
+        this.flusher = new Thread(this::flushLoop, "change-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // Open a journal for appending changes on top of the state with this baseline checksum.
+    // Records of the same baseline are kept (minus any torn tail); anything else is replaced
+    // by an empty journal.
+    public static ChangeJournal open(Path file, long baseline, Duration commitWindow) throws IOException {
+        long validEnd = Files.exists(file) ? scan(file, baseline, null) : -1;
+        if (validEnd < 0) {
+            writeEmpty(file, baseline);
+            validEnd = HEADER_BYTES;
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE);
+        channel.truncate(validEnd);
+        channel.position(validEnd);
+        return new ChangeJournal(file, channel, commitWindow);
+    }
+
+    public static ChangeJournal open(Path file, long baseline) throws IOException {
+        return open(file, baseline, Duration.ofMillis(2));
+    }
+
+    // Feed every intact change of a journal to sink, in order, if the journal applies to the
+    // state with this baseline. Returns the number of changes replayed.
+    public static long replay(Path file, long baseline, Consumer<ScheduleChange> sink) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long[] count = new long[1];
+        scan(file, baseline, change -> {
+            sink.accept(change);
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    // Queue a change; it is on disk once awaitDurable returns for the returned sequence number
+    public long append(ScheduleChange change) {
+        byte[] name = change.getEmployee().getName().getBytes(StandardCharsets.UTF_8);
+        if (name.length > 0xFFFF) {
+            throw new IllegalArgumentException("Employee name too long for the journal: " + change.getEmployee().getName());
+        }
+        int payload = 1 + 2 + name.length + (change.getType() == ScheduleChange.Type.EMPLOYEE_ADDED ? 4
+            : change.getType() == ScheduleChange.Type.EMPLOYEE_REMOVED ? 0 : 2);
+        synchronized (this) {
+            checkOpen();
+            if (pending.remaining() < RECORD_HEADER_BYTES + payload) {
+                pending = grow(pending, RECORD_HEADER_BYTES + payload);
+            }
+            int start = pending.position();
+            pending.position(start + RECORD_HEADER_BYTES);
+            pending.put((byte) change.getType().ordinal()).putShort((short) name.length).put(name);
+            switch (change.getType()) {
+                case EMPLOYEE_ADDED:
+                    pending.putInt(RosterFiles.preferenceBits(change.getEmployee()));
+                    break;
+                case PREFERENCE_ADDED:
+                case PREFERENCE_REMOVED:
+                    pending.put((byte) change.getDay().ordinal()).put((byte) change.getShift().ordinal());
+                    break;
+                default:
+                    break;
+            }
+            checksum.reset();
+            checksum.update(pending.duplicate().position(start + RECORD_HEADER_BYTES).limit(pending.position()));
+            pending.putInt(start, payload).putInt(start + 4, (int) checksum.getValue());
+            notifyAll();
+            return ++appended;
+        }
+    }
+
+    // Block until the change with this sequence number (and all before it) is on disk
+    public synchronized void awaitDurable(long sequence) throws IOException {
+        boolean interrupted = false;
+        while (durable < sequence && failure == null && !closed) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw new IOException("Journal write failed: " + file, failure);
+        }
+        if (durable < sequence) {
+            throw new IOException("Journal closed before sequence " + sequence + " was written: " + file);
+        }
+    }
+
+    // Block until everything appended so far is on disk
+    public void sync() throws IOException {
+        long sequence;
+        synchronized (this) {
+            sequence = appended;
+        }
+        awaitDurable(sequence);
+    }
+
+    // Save the schedule as the new baseline and start an empty journal on top of it. The caller
+    // must have applied every appended change to the schedule the snapshot came from.
+    public void compact(Path stateFile, ScheduleSnapshot snapshot) throws IOException {
+        sync();
+        long baseline = ScheduleFiles.write(stateFile, snapshot);
+        synchronized (this) {
+            boolean interrupted = false;
+            while (flushing) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            checkOpen();
+            if (pending.position() > 0) {
+                throw new IllegalStateException("Changes were appended while compacting " + file);
+            }
+            channel.close();
+            writeEmpty(file, baseline);
+            channel = FileChannel.open(file, StandardOpenOption.WRITE);
+            channel.position(HEADER_BYTES);
+        }
+    }
+
+    public synchronized long getAppended() {
+        return appended;
+    }
+
+    public synchronized long getDurable() {
+        return durable;
+    }
+
+    // Flush what is pending, stop the flusher and close the file
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+        }
+        try {
+            sync();
+        } finally {
+            synchronized (this) {
+                closed = true;
+                notifyAll();
+            }
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            long batchEnd;
+            synchronized (this) {
+                while (pending.position() == 0 && !closed) {
+                    waitQuietly(0);
+                }
+                if (pending.position() == 0) {
+                    return; // Closed with nothing left
+                }
+                // Let a burst of appends join this batch before paying for the fsync
+                long deadline = System.nanoTime() + commitWindowNanos;
+                long left;
+                while (!closed && (left = deadline - System.nanoTime()) > 0) {
+                    waitQuietly(Math.max(1, left / 1_000_000));
+                }
+                ByteBuffer swap = pending;
+                pending = writing;
+                writing = swap;
+                batchEnd = appended;
+                flushing = true;
+            }
+
+            IOException error = null;
+            try {
+                writing.flip();
+                while (writing.hasRemaining()) {
+                    channel.write(writing);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            } finally {
+                writing.clear();
+            }
+
+            synchronized (this) {
+                flushing = false;
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durable = batchEnd;
+                }
+                notifyAll();
+                if (failure != null) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void waitQuietly(long millis) {
+        try {
+            wait(millis);
+        } catch (InterruptedException e) {
+            // The flusher only stops on close
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Journal is closed: " + file);
+        }
+        if (failure != null) {
+            throw new UncheckedIOException("Journal write failed: " + file, failure);
+        }
+    }
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.BIG_ENDIAN);
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int needed) {
+        ByteBuffer bigger = newBuffer(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+        buffer.flip();
+        return bigger.put(buffer);
+    }
+
+    private static void writeEmpty(Path file, long baseline) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = newBuffer(HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).putLong(baseline).flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Walk the records of a journal with the given baseline, handing each to sink (if any).
+    // Returns the end of the last intact record, or -1 if the file is not a journal for that baseline.
+    private static long scan(Path file, long baseline, Consumer<ScheduleChange> sink) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + ": journals larger than 2 GB are not supported, compact it");
+            }
+            if (size < HEADER_BYTES) {
+                return -1;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION || buffer.getLong(8) != baseline) {
+                return -1;
+            }
+
+            CRC32C checksum = new CRC32C();
+            EmployeeStore store = new EmployeeStore(1024);
+            Map<String, Employee> employees = new HashMap<>(); // Names seen so far -> stand-in employee
+            byte[] nameBytes = new byte[256];
+            int position = HEADER_BYTES;
+            while (size - position >= RECORD_HEADER_BYTES) {
+                int payload = buffer.getInt(position);
+                int expected = buffer.getInt(position + 4);
+                if (payload < 3 || payload > size - position - RECORD_HEADER_BYTES) {
+                    break; // Torn tail
+                }
+                int start = position + RECORD_HEADER_BYTES;
+                checksum.reset();
+                checksum.update(buffer.slice(start, payload));
+                if ((int) checksum.getValue() != expected) {
+                    break;
+                }
+                int type = buffer.get(start);
+                int length = buffer.getShort(start + 1) & 0xFFFF;
+                if (type < 0 || type >= TYPES.length || 3 + length > payload) {
+                    throw new IOException(file + ": malformed record at byte " + position);
+                }
+                if (sink != null) {
+                    if (nameBytes.length < length) {
+                        nameBytes = new byte[length];
+                    }
+                    buffer.get(start + 3, nameBytes, 0, length);
+                    String name = new String(nameBytes, 0, length, StandardCharsets.UTF_8);
+                    sink.accept(decode(TYPES[type], name, buffer, start + 3 + length, store, employees));
+                }
+                position = start + payload;
+            }
+            return position;
+        }
+    }
+
+    private static ScheduleChange decode(ScheduleChange.Type type, String name, ByteBuffer buffer, int at,
+                                         EmployeeStore store, Map<String, Employee> employees) {
+        switch (type) {
+            case EMPLOYEE_ADDED: {
+                // A fresh employee each time: it becomes the roster's own instance when applied
+                Employee employee = store.add(name);
+                int shifts = Shift.values().length;
+                for (int bits = buffer.getInt(at); bits != 0; bits &= bits - 1) {
+                    int bit = Integer.numberOfTrailingZeros(bits);
+                    employee.addPreference(DayOfWeek.values()[bit / shifts], Shift.values()[bit % shifts]);
+                }
+                employees.put(name, employee);
+                return ScheduleChange.employeeAdded(employee);
+            }
+            case EMPLOYEE_REMOVED:
+                return ScheduleChange.employeeRemoved(employees.computeIfAbsent(name, store::add));
+            default: {
+                // Schedule looks employees up by name, so any stand-in with the right name will do
+                Employee employee = employees.computeIfAbsent(name, store::add);
+                DayOfWeek day = DayOfWeek.values()[buffer.get(at)];
+                Shift shift = Shift.values()[buffer.get(at + 1)];
+                return type == ScheduleChange.Type.PREFERENCE_ADDED
+                    ? ScheduleChange.preferenceAdded(employee, day, shift)
+                    : ScheduleChange.preferenceRemoved(employee, day, shift);
+            }
+        }
+    }
+}
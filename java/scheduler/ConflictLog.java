@@ -0,0 +1,94 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Shift;
+
+import java.util.*;
+
+// The conflicts Schedule has recorded: the employee and one packed int per record, so a generation
+// that leaves hundreds of thousands of preferences unmet on full shifts allocates two arrays
+// rather than an object for each. ConflictRecords are built when read.
+//
+// The log is a ring of at most capacity records: once full, each new record replaces the oldest,
+// so a long-running schedule taking edit after edit (ScheduleServer) holds a bounded window of
+// the latest conflicts. recorded() keeps counting everything added since the last clear.
+class ConflictLog extends AbstractList<ConflictRecord> {
+    private static final DayOfWeek[] DAYS = DayOfWeek.values();
+    private static final Shift[] SHIFTS = Shift.values();
+    private static final ConflictRecord.Resolution[] RESOLUTIONS = ConflictRecord.Resolution.values();
+
+    private final int capacity;
+    private Employee[] employees;
+    private int[] codes; // requested slot | resolution << 8 | (placed slot + 1) << 16, 0 = not placed
+    private int head; // Index of the oldest record once the ring has wrapped
+    private int size;
+    private long recorded;
+
+    ConflictLog(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Conflict log capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.employees = new Employee[Math.min(16, capacity)];
+        this.codes = new int[employees.length];
+    }
+
+    void add(Employee employee, DayOfWeek day, Shift shift, ConflictRecord.Resolution resolution,
+             DayOfWeek placedDay, Shift placedShift) {
+        if (size == employees.length && size < capacity) {
+            int length = (int) Math.min(capacity, size * 2L);
+            employees = Arrays.copyOf(employees, length);
+            codes = Arrays.copyOf(codes, length);
+        }
+        int index;
+        if (size < employees.length) {
+            index = size++;
+        } else {
+            index = head; // Full: overwrite the oldest
+            head = head + 1 == capacity ? 0 : head + 1;
+        }
+        int placed = placedDay == null ? 0 : placedDay.ordinal() * SHIFTS.length + placedShift.ordinal() + 1;
+        employees[index] = employee;
+        codes[index] = day.ordinal() * SHIFTS.length + shift.ordinal() | resolution.ordinal() << 8 | placed << 16;
+        recorded++;
+        modCount++;
+    }
+
+    // Oldest first; index 0 is the oldest record still held
+    @Override
+    public ConflictRecord get(int index) {
+        Objects.checkIndex(index, size);
+        int slot = head + index;
+        int code = codes[slot >= size ? slot - size : slot];
+        Employee employee = employees[slot >= size ? slot - size : slot];
+        int requested = code & 0xFF;
+        int placed = (code >>> 16) - 1;
+        return new ConflictRecord(employee, DAYS[requested / SHIFTS.length], SHIFTS[requested % SHIFTS.length],
+            RESOLUTIONS[(code >>> 8) & 0xFF], placed < 0 ? null : DAYS[placed / SHIFTS.length],
+            placed < 0 ? null : SHIFTS[placed % SHIFTS.length]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    // Records added since the last clear, including those the ring no longer holds
+    long recorded() {
+        return recorded;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(employees, 0, size, null);
+        size = 0;
+        head = 0;
+        recorded = 0;
+        modCount++;
+    }
+}
@@ -0,0 +1,64 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Shift;
+
+// What happened to a preference whose shift was already full, that is staffed to its target
+// (see Schedule.getConflicts)
+public final class ConflictRecord {
+    public enum Resolution {
+        SAME_DAY,   // Placed on another shift the same day
+        NEXT_DAY,   // Rolled over to the next day
+        UNRESOLVED  // No room on either day, or no days left in the employee's week
+    }
+
+    private final Employee employee;
+    private final DayOfWeek requestedDay;
+    private final Shift requestedShift;
+    private final Resolution resolution;
+    private final DayOfWeek placedDay;  // null when unresolved
+    private final Shift placedShift;    // null when unresolved
+
+    ConflictRecord(Employee employee, DayOfWeek requestedDay, Shift requestedShift, Resolution resolution,
+                   DayOfWeek placedDay, Shift placedShift) {
+        this.employee = employee;
+        this.requestedDay = requestedDay;
+        this.requestedShift = requestedShift;
+        this.resolution = resolution;
+        this.placedDay = placedDay;
+        this.placedShift = placedShift;
+    }
+
+    public Employee getEmployee() {
+        return employee;
+    }
+
+    public DayOfWeek getRequestedDay() {
+        return requestedDay;
+    }
+
+    public Shift getRequestedShift() {
+        return requestedShift;
+    }
+
+    public Resolution getResolution() {
+        return resolution;
+    }
+
+    public DayOfWeek getPlacedDay() {
+        return placedDay;
+    }
+
+    public Shift getPlacedShift() {
+        return placedShift;
+    }
+
+    @Override
+    public String toString() {
+        String requested = employee.getName() + " wanted " + requestedDay + " " + requestedShift;
+        return resolution == Resolution.UNRESOLVED
+            ? requested + ": full, could not be placed that day or the next"
+            : requested + ": full, placed on " + placedDay + " " + placedShift;
+    }
+}
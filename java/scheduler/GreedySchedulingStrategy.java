@@ -0,0 +1,54 @@
+package scheduler;
+
+import java.util.SplittableRandom;
+
+// The greedy: a holder of every role a shift requires (scarcest role first), then every shift up
+// to its minimum staff (smallest shortfall first, then least popular), then up to its target
+// (largest shortfall first, then most popular), one person at a time. Levels and role
+// requirements come from the schedule's StaffingLevels.
+// With a random source, slots of equal shortfall and popularity and equally good candidates are taken in
+// random order instead of roster order (used by MultiStartSchedulingStrategy).
+public class GreedySchedulingStrategy implements SchedulingStrategy {
+    private final SplittableRandom random;
+    
+    public GreedySchedulingStrategy() {
+        this(null);
+    }
+    
+    public GreedySchedulingStrategy(SplittableRandom random) {
+        this.random = random;
+    }
+    
+    @Override
+    public void generate(Schedule schedule) {
+        schedule.runPhase("clearSchedule", schedule::clearSchedule);
+        schedule.setTieBreaker(random);
+        try {
+            runPhases(schedule);
+        } finally {
+            schedule.setTieBreaker(null);
+        }
+    }
+    
+    private void runPhases(Schedule schedule) {
+        // Stage 0: Cover required roles, scarcest first (nothing to do without requirements)
+        schedule.runPhase("fillRequiredRoles", schedule::fillRequiredRoles);
+        
+        // Stage 1: Bring every shift up to its minimum staff, nearest to it first
+        schedule.runPhase("fillToMinimum", schedule::fillToMinimum);
+        
+        // Stage 2: Top shifts up to their target while employees haven't reached 5 days
+        schedule.runPhase("fillToTarget", schedule::fillToTarget);
+    }
+    
+    @Override
+    public String getName() {
+        return random == null ? "Greedy" : "Randomized greedy";
+    }
+    
+    // A random source cannot be told apart from another, so only the deterministic greedy is cached
+    @Override
+    public String getCacheKey() {
+        return random == null ? "greedy" : null;
+    }
+}
@@ -0,0 +1,354 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Shift;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.*;
+
+// Schedule over a horizon of dated days (for example 4 to 12 weeks) instead of one week.
+// Staffing rules are the weekly ones applied per date, using each employee's preferences for
+// that day of the week, and "at most 5 days" holds for every rolling 7-day window.
+//
+// Days are solved in date order, so only the window ending on the day being filled can be
+// exceeded. Each employee's count of days worked in the previous 6 days is kept as a sliding
+// window: it goes up on assignment and down when that assignment is 7 days old. Checking a
+// candidate is therefore O(1), and candidates are picked from buckets keyed by that count
+// (preferred employees first, then the fewest recent days, then roster order).
+//
+// Assignments are held here, per roster position and date, not on the Employee objects, so a
+// horizon can be planned for employees who also belong to a weekly Schedule.
+public class HorizonSchedule {
+    static final int WINDOW_DAYS = 7;
+
+    private final LocalDate startDate;
+    private final int dayCount;
+    private final int maxDaysPerWindow;
+    private final List<Employee> employees;
+    private final Map<String, Integer> idsByName; // Case-folded name -> roster position
+    private final List<List<List<Employee>>> staff; // [day][shift]
+
+    // Per roster position, filled by generateSchedule
+    private byte[] assignedShifts; // [id * dayCount + day] -> 0 = off, otherwise shift ordinal + 1
+    private int[] daysWorked;
+
+    public HorizonSchedule(LocalDate startDate, int dayCount) {
+        this(startDate, dayCount, Schedule.MAX_DAYS_PER_EMPLOYEE);
+    }
+
+    public HorizonSchedule(LocalDate startDate, int dayCount, int maxDaysPerWindow) {
+        if (dayCount <= 0) {
+            throw new IllegalArgumentException("Horizon must have at least one day");
+        }
+        if (maxDaysPerWindow <= 0 || maxDaysPerWindow > WINDOW_DAYS) {
+            throw new IllegalArgumentException("Days per window must be between 1 and " + WINDOW_DAYS);
+        }
+        this.startDate = Objects.requireNonNull(startDate);
+        this.dayCount = dayCount;
+        this.maxDaysPerWindow = maxDaysPerWindow;
+        this.employees = new ArrayList<>();
+        this.idsByName = new HashMap<>();
+        this.staff = new ArrayList<>(dayCount);
+        for (int d = 0; d < dayCount; d++) {
+            List<List<Employee>> byShift = new ArrayList<>();
+            for (Shift shift : Shift.values()) {
+                byShift.add(new ArrayList<>());
+            }
+            staff.add(byShift);
+        }
+        this.assignedShifts = new byte[0];
+        this.daysWorked = new int[0];
+    }
+
+    public static HorizonSchedule ofWeeks(LocalDate startDate, int weeks) {
+        return new HorizonSchedule(startDate, weeks * WINDOW_DAYS);
+    }
+
+    // Add an employee unless one with the same name (ignoring case) is already on the roster
+    public boolean addEmployee(Employee employee) {
+        if (idsByName.putIfAbsent(Schedule.nameKey(employee.getName()), employees.size()) != null) {
+            return false;
+        }
+        employees.add(employee);
+        return true;
+    }
+
+    // Returns the employees rejected as duplicates
+    public List<Employee> addEmployees(Collection<Employee> newEmployees) {
+        List<Employee> rejected = new ArrayList<>();
+        for (Employee employee : newEmployees) {
+            if (!addEmployee(employee)) {
+                rejected.add(employee);
+            }
+        }
+        return rejected;
+    }
+
+    // Solve every date of the horizon in order, replacing any previous result
+    public void generateSchedule() {
+        int size = employees.size();
+        assignedShifts = new byte[size * dayCount];
+        daysWorked = new int[size];
+        for (List<List<Employee>> byShift : staff) {
+            for (List<Employee> slot : byShift) {
+                slot.clear();
+            }
+        }
+
+        WindowIndex index = new WindowIndex();
+        Shift[] shifts = Shift.values();
+        for (int d = 0; d < dayCount; d++) {
+            index.startDay(d);
+            DayOfWeek weekday = getDayOfWeek(d);
+            Shift[] byPopularity = shifts.clone();
+            Arrays.sort(byPopularity, Comparator.comparingInt(shift -> index.popularity(weekday, shift)));
+
+            // Least popular shifts get their minimum first, then a third person for the most popular
+            for (Shift shift : byPopularity) {
+                fill(index, d, weekday, shift, Schedule.MIN_EMPLOYEES_PER_SHIFT);
+            }
+            for (int i = byPopularity.length - 1; i >= 0; i--) {
+                if (staff.get(d).get(byPopularity[i].ordinal()).size() == Schedule.MIN_EMPLOYEES_PER_SHIFT) {
+                    fill(index, d, weekday, byPopularity[i], Schedule.TARGET_EMPLOYEES_PER_SHIFT);
+                }
+            }
+        }
+    }
+
+    private void fill(WindowIndex index, int day, DayOfWeek weekday, Shift shift, int target) {
+        List<Employee> slot = staff.get(day).get(shift.ordinal());
+        while (slot.size() < target) {
+            int id = index.findBest(weekday, shift);
+            if (id < 0) {
+                return;
+            }
+            index.assign(id);
+            assignedShifts[id * dayCount + day] = (byte) (shift.ordinal() + 1);
+            daysWorked[id]++;
+            slot.add(employees.get(id));
+        }
+    }
+
+    // Eligible employees for the day being solved, bucketed by days worked in the previous six days.
+    // Employees who reached the window limit, or already work today, are in no bucket at all.
+    private class WindowIndex {
+        private final int[] windowCount;
+        private final int[][] preferenceMasks; // [id][weekday] -> shift bits, read once per solve
+        private final int[][] popularity;      // [weekday][shift]
+        private final BitSet[] available;       // [windowCount]
+        private final BitSet[][][] preferred;   // [weekday][shift][windowCount]
+        private final int[][] worked;           // [day % 7] -> roster positions working that day
+        private final int[] workedCount;
+        private int day = -1;
+
+        WindowIndex() {
+            int size = employees.size();
+            int weekdays = DayOfWeek.values().length;
+            int shifts = Shift.values().length;
+            this.windowCount = new int[size];
+            this.preferenceMasks = new int[size][weekdays];
+            this.popularity = new int[weekdays][shifts];
+            this.available = new BitSet[maxDaysPerWindow];
+            this.preferred = new BitSet[weekdays][shifts][maxDaysPerWindow];
+            for (int level = 0; level < maxDaysPerWindow; level++) {
+                available[level] = new BitSet(size);
+                for (int w = 0; w < weekdays; w++) {
+                    for (int s = 0; s < shifts; s++) {
+                        preferred[w][s][level] = new BitSet();
+                    }
+                }
+            }
+            this.worked = new int[WINDOW_DAYS][shifts * Schedule.TARGET_EMPLOYEES_PER_SHIFT];
+            this.workedCount = new int[WINDOW_DAYS];
+
+            for (int id = 0; id < size; id++) {
+                Employee employee = employees.get(id);
+                for (DayOfWeek weekday : DayOfWeek.values()) {
+                    int mask = employee.getStore().preferenceMask(employee.getRow(), weekday);
+                    preferenceMasks[id][weekday.ordinal()] = mask;
+                    for (int s = 0; s < shifts; s++) {
+                        if ((mask & (1 << s)) != 0) {
+                            popularity[weekday.ordinal()][s]++;
+                        }
+                    }
+                }
+                place(id);
+            }
+        }
+
+        int popularity(DayOfWeek weekday, Shift shift) {
+            return popularity[weekday.ordinal()][shift.ordinal()];
+        }
+
+        // Slide the window to a new day: yesterday's staff become eligible again at their new
+        // count, and the day leaving the window (same ring slot as today) releases its staff
+        void startDay(int newDay) {
+            if (day >= 0) {
+                int yesterday = day % WINDOW_DAYS;
+                for (int i = 0; i < workedCount[yesterday]; i++) {
+                    place(worked[yesterday][i]);
+                }
+            }
+            day = newDay;
+            int ring = newDay % WINDOW_DAYS;
+            for (int i = 0; i < workedCount[ring]; i++) {
+                int id = worked[ring][i];
+                clear(id);
+                windowCount[id]--;
+                place(id);
+            }
+            workedCount[ring] = 0;
+        }
+
+        // Preferred employees first, then fewest days in the window, then roster order; -1 if nobody is free
+        int findBest(DayOfWeek weekday, Shift shift) {
+            int id = firstCandidate(preferred[weekday.ordinal()][shift.ordinal()]);
+            return id >= 0 ? id : firstCandidate(available);
+        }
+
+        private int firstCandidate(BitSet[] byWindowCount) {
+            for (BitSet bucket : byWindowCount) {
+                int id = bucket.nextSetBit(0);
+                if (id >= 0) {
+                    return id;
+                }
+            }
+            return -1;
+        }
+
+        // Take an employee out of the buckets for the rest of the day
+        void assign(int id) {
+            clear(id);
+            windowCount[id]++;
+            int ring = day % WINDOW_DAYS;
+            worked[ring][workedCount[ring]++] = id;
+        }
+
+        private void place(int id) {
+            int level = windowCount[id];
+            if (level >= maxDaysPerWindow) {
+                return;
+            }
+            available[level].set(id);
+            int[] masks = preferenceMasks[id];
+            for (int w = 0; w < masks.length; w++) {
+                for (int s = 0; masks[w] >>> s != 0; s++) {
+                    if ((masks[w] & (1 << s)) != 0) {
+                        preferred[w][s][level].set(id);
+                    }
+                }
+            }
+        }
+
+        private void clear(int id) {
+            int level = windowCount[id];
+            if (level >= maxDaysPerWindow) {
+                return;
+            }
+            available[level].clear(id);
+            int[] masks = preferenceMasks[id];
+            for (int w = 0; w < masks.length; w++) {
+                for (int s = 0; masks[w] >>> s != 0; s++) {
+                    if ((masks[w] & (1 << s)) != 0) {
+                        preferred[w][s][level].clear(id);
+                    }
+                }
+            }
+        }
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public int getDayCount() {
+        return dayCount;
+    }
+
+    public LocalDate getDate(int day) {
+        return startDate.plusDays(day);
+    }
+
+    public DayOfWeek getDayOfWeek(int day) {
+        return DayOfWeek.of(getDate(day));
+    }
+
+    // Index of a date in the horizon, or -1 if it falls outside
+    public int dayOf(LocalDate date) {
+        long day = date.toEpochDay() - startDate.toEpochDay();
+        return day >= 0 && day < dayCount ? (int) day : -1;
+    }
+
+    public List<Employee> getEmployees() {
+        return employees;
+    }
+
+    // Staff of one slot, in pick order
+    public List<Employee> getStaff(int day, Shift shift) {
+        return Collections.unmodifiableList(staff.get(day).get(shift.ordinal()));
+    }
+
+    public List<Employee> getStaff(LocalDate date, Shift shift) {
+        int day = dayOf(date);
+        if (day < 0) {
+            throw new IllegalArgumentException(date + " is outside the planning horizon");
+        }
+        return getStaff(day, shift);
+    }
+
+    // Assigned shift on a day, or null when the employee is off or not on the roster
+    public Shift getAssignedShift(Employee employee, int day) {
+        int id = idOf(employee);
+        if (id < 0 || id * dayCount >= assignedShifts.length) {
+            return null;
+        }
+        int code = assignedShifts[id * dayCount + day];
+        return code == 0 ? null : Shift.values()[code - 1];
+    }
+
+    // Days worked over the whole horizon
+    public int getDaysWorked(Employee employee) {
+        int id = idOf(employee);
+        return id < 0 || id >= daysWorked.length ? 0 : daysWorked[id];
+    }
+
+    // Days worked in the 7-day window starting on the given day (clipped to the horizon)
+    public int getDaysWorkedInWindow(Employee employee, int firstDay) {
+        int count = 0;
+        for (int d = Math.max(firstDay, 0); d < Math.min(firstDay + WINDOW_DAYS, dayCount); d++) {
+            if (getAssignedShift(employee, d) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Most days worked in any 7-day window of the horizon
+    public int getMaxDaysInAnyWindow(Employee employee) {
+        int max = 0;
+        for (int first = 0; first + WINDOW_DAYS <= Math.max(dayCount, WINDOW_DAYS); first++) {
+            max = Math.max(max, getDaysWorkedInWindow(employee, first));
+        }
+        return max;
+    }
+
+    public int getMaxDaysPerWindow() {
+        return maxDaysPerWindow;
+    }
+
+    private int idOf(Employee employee) {
+        Integer id = idsByName.get(Schedule.nameKey(employee.getName()));
+        return id != null && employees.get(id).equals(employee) ? id : -1;
+    }
+
+    public void printSchedule() {
+        try {
+            new ScheduleRenderer(System.out).render(this);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Role;
+import dtos.Shift;
+
+import java.time.Duration;
+import java.util.*;
+
+// Phase 4: simulated annealing over a solved schedule, looking for more satisfied preferences and
+// a more even spread of days worked.
+//
+// Moves, all within the existing rules (one shift per day, at most 5 days, no shift above its
+// staffing target, no shift at or below its minimum left with fewer, and no shift losing the last
+// holder of a role it requires):
+//   - move an employee to another shift the same day,
+//   - swap two employees working different shifts the same day,
+//   - replace an employee on a shift by someone who is off that day.
+// The objective is preferenceWeight * preference hits - fairnessWeight * sum of squared days worked
+// (for a fixed number of assignments, the sum of squares is lowest when days are spread evenly).
+// Both aggregates are maintained as the search runs, so each move is scored by an O(1) delta that
+// only looks at the two or three employees involved, never by rescoring the week.
+//
+// The search works on arrays of roster positions and writes the best state back once at the end.
+public class LocalSearchOptimizer {
+    private static final int TIME_CHECK_INTERVAL = 1024;
+    private static final double FINAL_TEMPERATURE = 0.01;
+    private static final int ROLES = Role.values().length;
+
+    private final long seed;
+    private final Duration budget;
+    private final long maxMoves;
+    private final double preferenceWeight;
+    private final double fairnessWeight;
+
+    private long movesEvaluated;
+    private long movesAccepted;
+    private double improvement;
+
+    public LocalSearchOptimizer(Duration budget) {
+        this(632L, budget, Long.MAX_VALUE, 10, 1);
+    }
+
+    // Stops at the time budget or after maxMoves, whichever comes first; a move cap alone makes runs reproducible
+    public LocalSearchOptimizer(long seed, Duration budget, long maxMoves, double preferenceWeight, double fairnessWeight) {
+        if (maxMoves <= 0 || budget.isNegative() || budget.isZero()) {
+            throw new IllegalArgumentException("Local search needs a positive budget and move limit");
+        }
+        this.seed = seed;
+        this.budget = budget;
+        this.maxMoves = maxMoves;
+        this.preferenceWeight = preferenceWeight;
+        this.fairnessWeight = fairnessWeight;
+    }
+
+    // Improve the schedule in place; returns the objective gained (0 if nothing better was found)
+    public double optimize(Schedule schedule) {
+        Search search = new Search(schedule);
+        search.run();
+        movesEvaluated = search.evaluated;
+        movesAccepted = search.accepted;
+        improvement = search.bestObjective - search.initialObjective;
+        if (improvement > 0) {
+            search.writeBest(schedule);
+        } else {
+            improvement = 0;
+        }
+        return improvement;
+    }
+
+    public long getMovesEvaluated() {
+        return movesEvaluated;
+    }
+
+    public long getMovesAccepted() {
+        return movesAccepted;
+    }
+
+    public double getImprovement() {
+        return improvement;
+    }
+
+    // Working state of one optimize call
+    private class Search {
+        private final int shifts = Shift.values().length;
+        private final int days = DayOfWeek.values().length;
+        private final StaffingLevels staffing;
+        private final int capacity;         // Room per slot in slots: the largest target or staff count
+        private final List<Employee> roster;
+        private final int[] preferenceBits; // [id] -> bit day * shifts + shift
+        private final byte[] assigned;      // [id * days + day] -> 0 = off, otherwise shift + 1
+        private final int[] daysWorked;
+        private final int[] roleBits;       // [id] -> Role bits
+        private final int[] roleHolders;    // [slot * roles + role] -> holders on the slot
+        private final int[] slots;          // [(day * shifts + shift) * capacity + k] -> id
+        private final int[] slotSizes;      // [day * shifts + shift]
+        private final int[] bestSlots;
+        private final int[] bestSlotSizes;
+        private final SplittableRandom random = new SplittableRandom(seed);
+
+        private long preferenceHits;
+        private long sumOfSquares;
+        private double initialObjective;
+        private double bestObjective;
+        private long evaluated;
+        private long accepted;
+
+        Search(Schedule schedule) {
+            this.staffing = schedule.getStaffing();
+            int largest = staffing.maxTarget();
+            for (DayOfWeek day : DayOfWeek.values()) {
+                for (Shift shift : Shift.values()) {
+                    largest = Math.max(largest, schedule.staffOf(day, shift).size());
+                }
+            }
+            this.capacity = largest;
+            this.roster = new ArrayList<>(schedule.getEmployees());
+            int size = roster.size();
+            Map<Employee, Integer> ids = new HashMap<>(size * 2);
+            this.preferenceBits = new int[size];
+            this.assigned = new byte[size * days];
+            this.daysWorked = new int[size];
+            this.roleBits = new int[size];
+            this.roleHolders = new int[days * shifts * ROLES];
+            for (int id = 0; id < size; id++) {
+                Employee employee = roster.get(id);
+                ids.put(employee, id);
+                roleBits[id] = employee.getStore().roleMask(employee.getRow());
+                for (DayOfWeek day : DayOfWeek.values()) {
+                    preferenceBits[id] |= employee.getStore().preferenceMask(employee.getRow(), day) << (day.ordinal() * shifts);
+                }
+            }
+
+            this.slots = new int[days * shifts * capacity];
+            this.slotSizes = new int[days * shifts];
+            for (DayOfWeek day : DayOfWeek.values()) {
+                for (Shift shift : Shift.values()) {
+                    int slot = day.ordinal() * shifts + shift.ordinal();
+                    for (Employee employee : schedule.staffOf(day, shift)) {
+                        int id = ids.get(employee);
+                        slots[slot * capacity + slotSizes[slot]++] = id;
+                        changeHolders(slot, roleBits[id], 1);
+                        assigned[id * days + day.ordinal()] = (byte) (shift.ordinal() + 1);
+                        daysWorked[id]++;
+                        if (prefers(id, day.ordinal(), shift.ordinal())) {
+                            preferenceHits++;
+                        }
+                    }
+                }
+            }
+            for (int worked : daysWorked) {
+                sumOfSquares += (long) worked * worked;
+            }
+            this.initialObjective = objective();
+            this.bestObjective = initialObjective;
+            this.bestSlots = slots.clone();
+            this.bestSlotSizes = slotSizes.clone();
+        }
+
+        private boolean prefers(int id, int day, int shift) {
+            return (preferenceBits[id] & (1 << (day * shifts + shift))) != 0;
+        }
+
+        private double objective() {
+            return preferenceWeight * preferenceHits - fairnessWeight * sumOfSquares;
+        }
+
+        void run() {
+            if (roster.isEmpty()) {
+                return;
+            }
+            long start = System.nanoTime();
+            long budgetNanos = budget.toNanos();
+            double initialTemperature = Math.max(preferenceWeight, fairnessWeight);
+            double temperature = initialTemperature;
+            while (evaluated < maxMoves) {
+                if (evaluated % TIME_CHECK_INTERVAL == 0) {
+                    double progress = Math.max((System.nanoTime() - start) / (double) budgetNanos,
+                        evaluated / (double) maxMoves);
+                    if (progress >= 1) {
+                        break;
+                    }
+                    temperature = initialTemperature * Math.pow(FINAL_TEMPERATURE / initialTemperature, progress);
+                }
+                evaluated++;
+                tryMove(temperature);
+            }
+        }
+
+        private void tryMove(double temperature) {
+            int day = random.nextInt(days);
+            int from = random.nextInt(shifts);
+            int fromSlot = day * shifts + from;
+            if (slotSizes[fromSlot] == 0) {
+                return;
+            }
+            int position = random.nextInt(slotSizes[fromSlot]);
+            int employee = slots[fromSlot * capacity + position];
+
+            switch (random.nextInt(3)) {
+                case 0: { // Move to another shift the same day
+                    int to = (from + 1 + random.nextInt(shifts - 1)) % shifts;
+                    int toSlot = day * shifts + to;
+                    if (slotSizes[toSlot] >= staffing.target(toSlot) || slotSizes[fromSlot] <= staffing.minimum(fromSlot)
+                        || !keepsRoles(fromSlot, roleBits[employee], 0)) {
+                        return;
+                    }
+                    int hits = hit(employee, day, to) - hit(employee, day, from);
+                    if (accept(preferenceWeight * hits, temperature)) {
+                        removeAt(fromSlot, position);
+                        add(toSlot, employee);
+                        changeHolders(fromSlot, roleBits[employee], -1);
+                        changeHolders(toSlot, roleBits[employee], 1);
+                        assigned[employee * days + day] = (byte) (to + 1);
+                        commit(hits, 0);
+                    }
+                    return;
+                }
+                case 1: { // Swap with someone on another shift the same day
+                    int to = (from + 1 + random.nextInt(shifts - 1)) % shifts;
+                    int toSlot = day * shifts + to;
+                    if (slotSizes[toSlot] == 0) {
+                        return;
+                    }
+                    int otherPosition = random.nextInt(slotSizes[toSlot]);
+                    int other = slots[toSlot * capacity + otherPosition];
+                    if (!keepsRoles(fromSlot, roleBits[employee], roleBits[other])
+                        || !keepsRoles(toSlot, roleBits[other], roleBits[employee])) {
+                        return;
+                    }
+                    int hits = hit(employee, day, to) + hit(other, day, from) - hit(employee, day, from) - hit(other, day, to);
+                    if (accept(preferenceWeight * hits, temperature)) {
+                        slots[fromSlot * capacity + position] = other;
+                        slots[toSlot * capacity + otherPosition] = employee;
+                        changeHolders(fromSlot, roleBits[employee], -1);
+                        changeHolders(fromSlot, roleBits[other], 1);
+                        changeHolders(toSlot, roleBits[other], -1);
+                        changeHolders(toSlot, roleBits[employee], 1);
+                        assigned[employee * days + day] = (byte) (to + 1);
+                        assigned[other * days + day] = (byte) (from + 1);
+                        commit(hits, 0);
+                    }
+                    return;
+                }
+                default: { // Hand the shift to someone who is off that day
+                    int replacement = random.nextInt(roster.size());
+                    if (assigned[replacement * days + day] != 0 || daysWorked[replacement] >= Schedule.MAX_DAYS_PER_EMPLOYEE
+                        || !keepsRoles(fromSlot, roleBits[employee], roleBits[replacement])) {
+                        return;
+                    }
+                    int hits = hit(replacement, day, from) - hit(employee, day, from);
+                    // (r + 1)^2 - r^2 + (e - 1)^2 - e^2
+                    long squares = 2L * daysWorked[replacement] + 1 - (2L * daysWorked[employee] - 1);
+                    if (accept(preferenceWeight * hits - fairnessWeight * squares, temperature)) {
+                        slots[fromSlot * capacity + position] = replacement;
+                        changeHolders(fromSlot, roleBits[employee], -1);
+                        changeHolders(fromSlot, roleBits[replacement], 1);
+                        assigned[employee * days + day] = 0;
+                        assigned[replacement * days + day] = (byte) (from + 1);
+                        daysWorked[employee]--;
+                        daysWorked[replacement]++;
+                        commit(hits, squares);
+                    }
+                }
+            }
+        }
+
+        // Whether a slot keeps a holder of every role it requires when someone holding lost leaves
+        // and someone holding gained joins
+        private boolean keepsRoles(int slot, int lost, int gained) {
+            for (int missing = lost & ~gained & staffing.requiredRoles(slot); missing != 0; missing &= missing - 1) {
+                if (roleHolders[slot * ROLES + Integer.numberOfTrailingZeros(missing)] == 1) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void changeHolders(int slot, int roleMask, int delta) {
+            for (int roles = roleMask; roles != 0; roles &= roles - 1) {
+                roleHolders[slot * ROLES + Integer.numberOfTrailingZeros(roles)] += delta;
+            }
+        }
+
+        private int hit(int id, int day, int shift) {
+            return prefers(id, day, shift) ? 1 : 0;
+        }
+
+        private boolean accept(double delta, double temperature) {
+            return delta >= 0 || random.nextDouble() < Math.exp(delta / temperature);
+        }
+
+        private void commit(int hits, long squares) {
+            accepted++;
+            preferenceHits += hits;
+            sumOfSquares += squares;
+            double objective = objective();
+            if (objective > bestObjective) {
+                bestObjective = objective;
+                System.arraycopy(slots, 0, bestSlots, 0, slots.length);
+                System.arraycopy(slotSizes, 0, bestSlotSizes, 0, slotSizes.length);
+            }
+        }
+
+        private void removeAt(int slot, int position) {
+            int last = --slotSizes[slot];
+            slots[slot * capacity + position] = slots[slot * capacity + last];
+        }
+
+        private void add(int slot, int id) {
+            slots[slot * capacity + slotSizes[slot]++] = id;
+        }
+
+        // The best state is fully described by the slots, so days worked follow from replaying them
+        void writeBest(Schedule schedule) {
+            schedule.clearSchedule();
+            for (DayOfWeek day : DayOfWeek.values()) {
+                for (Shift shift : Shift.values()) {
+                    int slot = day.ordinal() * shifts + shift.ordinal();
+                    for (int k = 0; k < bestSlotSizes[slot]; k++) {
+                        schedule.assignToSlot(roster.get(bestSlots[slot * capacity + k]), day, shift);
+                    }
+                }
+            }
+        }
+    }
+}
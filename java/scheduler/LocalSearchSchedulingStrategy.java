@@ -0,0 +1,33 @@
+package scheduler;
+
+import java.time.Duration;
+
+// Any strategy followed by a local-search phase 4 (see LocalSearchOptimizer)
+public class LocalSearchSchedulingStrategy implements SchedulingStrategy {
+    private final SchedulingStrategy base;
+    private final LocalSearchOptimizer optimizer;
+
+    public LocalSearchSchedulingStrategy(Duration budget) {
+        this(new GreedySchedulingStrategy(), new LocalSearchOptimizer(budget));
+    }
+
+    public LocalSearchSchedulingStrategy(SchedulingStrategy base, LocalSearchOptimizer optimizer) {
+        this.base = base;
+        this.optimizer = optimizer;
+    }
+
+    @Override
+    public void generate(Schedule schedule) {
+        base.generate(schedule);
+        schedule.runPhase("local search", () -> optimizer.optimize(schedule));
+    }
+
+    public LocalSearchOptimizer getOptimizer() {
+        return optimizer;
+    }
+
+    @Override
+    public String getName() {
+        return base.getName() + " + local search";
+    }
+}
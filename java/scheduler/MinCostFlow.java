@@ -0,0 +1,360 @@
+package scheduler;
+
+import java.util.Arrays;
+
+// Min-cost flow on primitive arrays (primal-dual: Dijkstra with potentials, then blocking flows).
+// Flow stops as soon as another unit would not lower the total cost, so negative costs act as
+// rewards and the result is the cheapest flow of any size, not a maximum flow.
+// Graphs with negative edge costs must call initPotentials with a topological order first.
+// Edges are kept in insertion order until the first initPotentials or solve, which lays every
+// node's residual edges out next to each other; no edge can be added after that.
+class MinCostFlow {
+    private static final long INFINITE = Long.MAX_VALUE / 4;
+
+    private final int nodeCount;
+    private int[] to;
+    private int[] capacity;
+    private long[] cost;
+    private int edgeCount;
+    private int[] first; // Node -> its first residual edge once laid out, null before
+    private int[] reverse;
+    private int[] position; // Edge id from addEdge -> its index once laid out
+
+    private final long[] potential;
+    private final long[] distance;
+    private final int[] reached; // Search in which distance was last set
+    private final int[] settledNodes;
+    private int settledCount;
+    private final int[] level;
+    private final int[] levelSearch; // Level search in which level was last set
+    private final int[] currentEdge;
+    private final int[] queue;
+    private final int[] pathEdges;
+    private final IndexedHeap heap;
+    private int search;
+    private int levelSearchCount;
+
+    MinCostFlow(int nodeCount, int expectedEdges) {
+        this.nodeCount = nodeCount;
+        int edgeSlots = Math.max(2 * expectedEdges, 2);
+        this.to = new int[edgeSlots];
+        this.capacity = new int[edgeSlots];
+        this.cost = new long[edgeSlots];
+        this.potential = new long[nodeCount];
+        this.distance = new long[nodeCount];
+        this.reached = new int[nodeCount];
+        this.settledNodes = new int[nodeCount];
+        this.level = new int[nodeCount];
+        this.levelSearch = new int[nodeCount];
+        this.currentEdge = new int[nodeCount];
+        this.queue = new int[nodeCount];
+        this.pathEdges = new int[nodeCount];
+        this.heap = new IndexedHeap(nodeCount, distance);
+    }
+
+    // Returns the edge id; its reverse residual edge is id ^ 1
+    int addEdge(int from, int target, int edgeCapacity, long edgeCost) {
+        if (first != null) {
+            throw new IllegalStateException("Edges cannot be added once the flow is solved");
+        }
+        if (edgeCount + 2 > to.length) {
+            int size = to.length * 2;
+            to = Arrays.copyOf(to, size);
+            capacity = Arrays.copyOf(capacity, size);
+            cost = Arrays.copyOf(cost, size);
+        }
+        int id = edgeCount;
+        to[id] = target;
+        capacity[id] = edgeCapacity;
+        cost[id] = edgeCost;
+        to[id + 1] = from;
+        cost[id + 1] = -edgeCost;
+        edgeCount += 2;
+        return id;
+    }
+
+    // Groups the residual edges by the node they leave, in insertion order, so that a search reads
+    // each node's edges from consecutive memory instead of chasing a linked list across the arrays
+    private void layOut() {
+        if (first != null) {
+            return;
+        }
+        first = new int[nodeCount + 1];
+        for (int id = 0; id < edgeCount; id++) {
+            first[to[id ^ 1] + 1]++;
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            first[v + 1] += first[v];
+        }
+        int[] fill = Arrays.copyOf(first, nodeCount);
+        position = new int[edgeCount];
+        for (int id = 0; id < edgeCount; id++) {
+            position[id] = fill[to[id ^ 1]]++;
+        }
+        int[] laidTo = new int[edgeCount];
+        int[] laidCapacity = new int[edgeCount];
+        long[] laidCost = new long[edgeCount];
+        reverse = new int[edgeCount];
+        for (int id = 0; id < edgeCount; id++) {
+            int e = position[id];
+            laidTo[e] = to[id];
+            laidCapacity[e] = capacity[id];
+            laidCost[e] = cost[id];
+            reverse[e] = position[id ^ 1];
+        }
+        to = laidTo;
+        capacity = laidCapacity;
+        cost = laidCost;
+    }
+
+    // Exact shortest distances from the source for a DAG, given its nodes in topological order.
+    // Nodes missing from the order or unreachable keep a potential of 0 (they carry no flow yet).
+    void initPotentials(int[] topologicalOrder) {
+        layOut();
+        Arrays.fill(distance, INFINITE);
+        distance[topologicalOrder[0]] = 0;
+        for (int u : topologicalOrder) {
+            if (distance[u] == INFINITE) {
+                continue;
+            }
+            for (int e = first[u]; e < first[u + 1]; e++) {
+                if (capacity[e] > 0 && distance[u] + cost[e] < distance[to[e]]) {
+                    distance[to[e]] = distance[u] + cost[e];
+                }
+            }
+        }
+        for (int v = 0; v < nodeCount; v++) {
+            potential[v] = distance[v] == INFINITE ? 0 : distance[v];
+        }
+    }
+
+    // Returns the total cost of the flow sent. Each round pushes a blocking flow over the edges of
+    // zero reduced cost: every such path is a shortest one, so rewards that tie (say, every slot's
+    // minimum staff) are sent in one round rather than a Dijkstra per unit. The potentials from
+    // initPotentials are already exact, so the first round needs no Dijkstra at all.
+    long solve(int source, int sink) {
+        layOut();
+        long totalCost = 0;
+        while (true) {
+            long pathCost = potential[sink] - potential[source];
+            if (pathCost >= 0) {
+                break;
+            }
+            while (levelAdmissible(source, sink)) {
+                totalCost += pathCost * blockingFlow(source, sink);
+            }
+            if (!shortestPath(source, sink)) {
+                break;
+            }
+            updatePotentials(sink);
+        }
+        return totalCost;
+    }
+
+    // Dijkstra on reduced costs, stopped as soon as the sink is settled. Only the nodes it touches
+    // are reset, so a round costs what it explores rather than the size of the graph.
+    private boolean shortestPath(int source, int sink) {
+        search++;
+        settledCount = 0;
+        heap.clear();
+        reached[source] = search;
+        distance[source] = 0;
+        heap.push(source);
+        while (!heap.isEmpty()) {
+            int u = heap.pop();
+            settledNodes[settledCount++] = u;
+            if (u == sink) {
+                return true;
+            }
+            long d = distance[u];
+            for (int e = first[u]; e < first[u + 1]; e++) {
+                if (capacity[e] <= 0) {
+                    continue;
+                }
+                int v = to[e];
+                long candidate = d + cost[e] + potential[u] - potential[v];
+                if (reached[v] != search) {
+                    reached[v] = search;
+                    distance[v] = candidate;
+                    heap.push(v);
+                } else if (candidate < distance[v] && heap.contains(v)) {
+                    distance[v] = candidate;
+                    heap.decreased(v);
+                }
+            }
+        }
+        return false;
+    }
+
+    // With an early stop, nodes not settled are capped at the sink's distance, which keeps every
+    // reduced cost on the residual graph non-negative. Only differences of potentials matter, so
+    // rather than raising every other node by the cap, the settled ones are lowered by it.
+    private void updatePotentials(int sink) {
+        long cap = distance[sink];
+        for (int i = 0; i < settledCount; i++) {
+            int v = settledNodes[i];
+            potential[v] += distance[v] - cap;
+        }
+    }
+
+    // Breadth-first levels over residual edges of zero reduced cost; true if the sink is reached
+    private boolean levelAdmissible(int source, int sink) {
+        levelSearchCount++;
+        int tail = 0;
+        queue[tail++] = source;
+        levelSearch[source] = levelSearchCount;
+        level[source] = 0;
+        currentEdge[source] = first[source];
+        for (int front = 0; front < tail; front++) {
+            int u = queue[front];
+            for (int e = first[u]; e < first[u + 1]; e++) {
+                int v = to[e];
+                if (admissible(u, e) && levelSearch[v] != levelSearchCount) {
+                    levelSearch[v] = levelSearchCount;
+                    level[v] = level[u] + 1;
+                    currentEdge[v] = first[v];
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return levelSearch[sink] == levelSearchCount;
+    }
+
+    // Pushes flow along level-increasing admissible paths until none is left (Dinic's blocking
+    // flow, iterative so long residual paths cannot overflow the stack); returns the units sent
+    private long blockingFlow(int source, int sink) {
+        long sent = 0;
+        int depth = 0;
+        int u = source;
+        while (true) {
+            if (u == sink) {
+                int push = Integer.MAX_VALUE;
+                for (int i = 0; i < depth; i++) {
+                    push = Math.min(push, capacity[pathEdges[i]]);
+                }
+                for (int i = 0; i < depth; i++) {
+                    capacity[pathEdges[i]] -= push;
+                    capacity[reverse[pathEdges[i]]] += push;
+                }
+                sent += push;
+                depth = 0;
+                u = source;
+                continue;
+            }
+            int e = currentEdge[u];
+            int end = first[u + 1];
+            while (e < end && !(admissible(u, e) && onLevel(u, to[e]))) {
+                e++;
+            }
+            currentEdge[u] = e;
+            if (e < end) {
+                pathEdges[depth++] = e;
+                u = to[e];
+            } else if (u == source) {
+                return sent;
+            } else {
+                levelSearch[u] = 0; // Dead end for the rest of this level search
+                u = to[reverse[pathEdges[--depth]]];
+                currentEdge[u]++;
+            }
+        }
+    }
+
+    private boolean onLevel(int u, int v) {
+        return levelSearch[v] == levelSearchCount && level[v] == level[u] + 1;
+    }
+
+    private boolean admissible(int u, int e) {
+        return capacity[e] > 0 && cost[e] + potential[u] - potential[to[e]] == 0;
+    }
+
+    int flow(int edge) {
+        return capacity[position[edge ^ 1]];
+    }
+
+    // Binary min-heap of nodes keyed by the shared distance array, with each node's heap position
+    // tracked so that a shorter distance moves the node up in place instead of adding a duplicate
+    private static final class IndexedHeap {
+        private final long[] keys;
+        private final int[] nodes;
+        private final int[] position; // Heap index + 1, or 0 when the node is not in the heap
+        private int size;
+
+        IndexedHeap(int nodeCount, long[] keys) {
+            this.keys = keys;
+            this.nodes = new int[nodeCount];
+            this.position = new int[nodeCount];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        boolean contains(int node) {
+            return position[node] != 0;
+        }
+
+        void clear() {
+            for (int i = 0; i < size; i++) {
+                position[nodes[i]] = 0;
+            }
+            size = 0;
+        }
+
+        void push(int node) {
+            siftUp(size++, node);
+        }
+
+        void decreased(int node) {
+            siftUp(position[node] - 1, node);
+        }
+
+        int pop() {
+            int top = nodes[0];
+            position[top] = 0;
+            int node = nodes[--size];
+            if (size > 0) {
+                siftDown(node);
+            }
+            return top;
+        }
+
+        private void siftUp(int i, int node) {
+            long key = keys[node];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[nodes[parent]] <= key) {
+                    break;
+                }
+                place(i, nodes[parent]);
+                i = parent;
+            }
+            place(i, node);
+        }
+
+        private void siftDown(int node) {
+            long key = keys[node];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[nodes[child + 1]] < keys[nodes[child]]) {
+                    child++;
+                }
+                if (keys[nodes[child]] >= key) {
+                    break;
+                }
+                place(i, nodes[child]);
+                i = child;
+            }
+            place(i, node);
+        }
+
+        private void place(int i, int node) {
+            nodes[i] = node;
+            position[node] = i + 1;
+        }
+    }
+}
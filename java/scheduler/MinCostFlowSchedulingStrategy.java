@@ -0,0 +1,185 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Role;
+import dtos.Shift;
+
+import java.util.*;
+
+// Schedule built from a min-cost flow:
+//   source -> employee          capacity 1 per weekly day, the k-th day costing k (spreads workload)
+//   employee -> employee/day    capacity 1 (one shift per day)
+//   employee/day -> slot        capacity 1, rewarded when the employee prefers that shift
+//   slot -> sink                the slot's minimum staff (large reward) plus the rest of its target
+//                               (smaller reward), from the schedule's StaffingLevels
+// The rewards are lexicographic: staffing a shift to the minimum beats covering a role it requires,
+// which beats staffing above the minimum, which beats any number of preference hits, which beat
+// an even spread of days.
+// A slot that requires roles gets a node per role in front of it, rewarding its first unit: a holder
+// reaches the slot through the node of the scarcest required role they hold. One path per person
+// cannot credit someone holding two required roles for both, so whatever the flow leaves uncovered
+// is met afterwards by the greedy's role stage, which adds or swaps in holders
+// (see Schedule.fillRequiredRoles).
+// The flow is the cheapest one for this network, but the schedule is not necessarily the cheapest
+// under the same rewards: lone people are merged and roles are repaired after it, and neither step
+// weighs the flow's costs, so on a tight roster either may give up preference hits.
+public class MinCostFlowSchedulingStrategy implements SchedulingStrategy {
+    private static final long MIN_STAFF_REWARD = -1_000_000_000L;
+    private static final long ROLE_REWARD = -10_000_000L;
+    private static final long TARGET_STAFF_REWARD = -1_000_000L;
+    private static final long PREFERENCE_REWARD = -1_000L;
+    private static final long EXTRA_DAY_COST = 1L;
+    
+    @Override
+    public void generate(Schedule schedule) {
+        schedule.clearSchedule();
+        
+        List<Employee> employees = schedule.getEmployees();
+        DayOfWeek[] days = DayOfWeek.values();
+        Shift[] shifts = Shift.values();
+        int n = employees.size();
+        int slotCount = days.length * shifts.length;
+        
+        int source = 0;
+        int sink = 1;
+        int firstSlot = 2;
+        int firstEmployee = firstSlot + slotCount;
+        int firstEmployeeDay = firstEmployee + n;
+        int firstSlotRole = firstEmployeeDay + n * days.length;
+        int roleCount = Role.values().length;
+        int nodeCount = firstSlotRole + slotCount * roleCount;
+        
+        int maxDays = Schedule.MAX_DAYS_PER_EMPLOYEE;
+        MinCostFlow flow = new MinCostFlow(nodeCount,
+            n * (maxDays + days.length + slotCount) + 2 * slotCount * (1 + roleCount));
+        
+        StaffingLevels staffing = schedule.getStaffing();
+        for (int slot = 0; slot < slotCount; slot++) {
+            flow.addEdge(firstSlot + slot, sink, staffing.minimum(slot), MIN_STAFF_REWARD);
+            flow.addEdge(firstSlot + slot, sink, staffing.target(slot) - staffing.minimum(slot), TARGET_STAFF_REWARD);
+            for (int roles = staffing.requiredRoles(slot); roles != 0; roles &= roles - 1) {
+                int slotRole = firstSlotRole + slot * roleCount + Integer.numberOfTrailingZeros(roles);
+                flow.addEdge(slotRole, firstSlot + slot, 1, ROLE_REWARD);
+                flow.addEdge(slotRole, firstSlot + slot, staffing.target(slot), 0);
+            }
+        }
+        
+        // Roles in order of how few employees hold them, scarcest first
+        int[] holders = new int[roleCount];
+        if (staffing.requiresRoles()) {
+            for (Employee employee : employees) {
+                for (int roles = Schedule.roleMask(employee); roles != 0; roles &= roles - 1) {
+                    holders[Integer.numberOfTrailingZeros(roles)]++;
+                }
+            }
+        }
+        Integer[] byScarcity = new Integer[roleCount];
+        Arrays.setAll(byScarcity, role -> role);
+        Arrays.sort(byScarcity, Comparator.comparingInt(role -> holders[role]));
+        
+        int[] assignmentEdges = new int[n * slotCount];
+        for (int i = 0; i < n; i++) {
+            Employee employee = employees.get(i);
+            int employeeNode = firstEmployee + i;
+            int roleMask = Schedule.roleMask(employee);
+            for (int k = 0; k < maxDays; k++) {
+                flow.addEdge(source, employeeNode, 1, k * EXTRA_DAY_COST);
+            }
+            for (DayOfWeek day : days) {
+                int dayNode = firstEmployeeDay + i * days.length + day.ordinal();
+                flow.addEdge(employeeNode, dayNode, 1, 0);
+                for (Shift shift : shifts) {
+                    int slot = day.ordinal() * shifts.length + shift.ordinal();
+                    long cost = employee.prefersShift(day, shift) ? PREFERENCE_REWARD : 0;
+                    int slotNode = firstSlot + slot;
+                    int held = roleMask & staffing.requiredRoles(slot);
+                    if (held != 0) {
+                        for (int role : byScarcity) {
+                            if ((held & (1 << role)) != 0) {
+                                slotNode = firstSlotRole + slot * roleCount + role;
+                                break;
+                            }
+                        }
+                    }
+                    assignmentEdges[i * slotCount + slot] = flow.addEdge(dayNode, slotNode, 1, cost);
+                }
+            }
+        }
+        
+        // Layers in order: source, employees, employee/days, slot roles, slots, sink
+        int[] order = new int[nodeCount];
+        int position = 0;
+        order[position++] = source;
+        for (int v = firstEmployee; v < nodeCount; v++) {
+            order[position++] = v;
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            order[position++] = firstSlot + slot;
+        }
+        order[position] = sink;
+        flow.initPotentials(order);
+        flow.solve(source, sink);
+        
+        for (int i = 0; i < n; i++) {
+            for (DayOfWeek day : days) {
+                for (Shift shift : shifts) {
+                    int slot = day.ordinal() * shifts.length + shift.ordinal();
+                    if (flow.flow(assignmentEdges[i * slotCount + slot]) > 0) {
+                        schedule.assignToSlot(employees.get(i), day, shift);
+                    }
+                }
+            }
+        }
+        
+        mergeSingleStaffedShifts(schedule);
+        schedule.fillRequiredRoles();
+    }
+    
+    // The flow rewards every unit of minimum staff alike, so on a very small roster it may leave
+    // several shifts with one person each. A lone person is a constraint violation, so move lone
+    // people onto each other's shifts (any day they are still free) to complete as many as possible.
+    private void mergeSingleStaffedShifts(Schedule schedule) {
+        List<DayOfWeek> singleDays = new ArrayList<>();
+        List<Shift> singleShifts = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                if (schedule.staffOf(day, shift).size() == 1) {
+                    singleDays.add(day);
+                    singleShifts.add(shift);
+                }
+            }
+        }
+        
+        boolean[] merged = new boolean[singleDays.size()];
+        for (int from = 0; from < merged.length; from++) {
+            if (merged[from]) {
+                continue;
+            }
+            DayOfWeek fromDay = singleDays.get(from);
+            Shift fromShift = singleShifts.get(from);
+            Employee mover = schedule.staffOf(fromDay, fromShift).get(0);
+            for (int into = from + 1; into < merged.length; into++) {
+                DayOfWeek intoDay = singleDays.get(into);
+                if (merged[into] || (intoDay != fromDay && mover.isAssigned(intoDay))) {
+                    continue;
+                }
+                schedule.unassignFromSlot(mover, fromDay, fromShift);
+                schedule.assignToSlot(mover, intoDay, singleShifts.get(into));
+                merged[from] = true;
+                merged[into] = true;
+                break;
+            }
+        }
+    }
+    
+    @Override
+    public String getName() {
+        return "Min-cost flow";
+    }
+    
+    @Override
+    public String getCacheKey() {
+        return "min-cost-flow";
+    }
+}
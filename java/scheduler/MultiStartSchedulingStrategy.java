@@ -0,0 +1,101 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Shift;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Runs several randomized variants of the greedy in parallel and keeps the best by a ScheduleScore.
+//
+// Start 0 is the plain deterministic greedy, so the result is never worse than it; every other
+// start randomizes tie-breaks (see GreedySchedulingStrategy) with its own SplittableRandom split
+// off a master seed. Each start solves on its own copy of the roster, so starts share nothing.
+// Results only depend on the master seed and the number of starts: equal scores go to the lowest
+// start, whatever order the tasks finish in. The default is a fixed DEFAULT_STARTS, so the same
+// roster gets the same week on every machine; a caller who wants more cores to search more
+// variants passes a count scaled to its pool, e.g. 4 * pool.getParallelism().
+public class MultiStartSchedulingStrategy implements SchedulingStrategy {
+    public static final int DEFAULT_STARTS = 16;
+    
+    private final int starts;
+    private final long masterSeed;
+    private final ScheduleScore score;
+    private final ForkJoinPool pool;
+    
+    public MultiStartSchedulingStrategy() {
+        this(DEFAULT_STARTS, 632L, ScheduleScore.DEFAULT, ForkJoinPool.commonPool());
+    }
+    
+    public MultiStartSchedulingStrategy(int starts, long masterSeed, ScheduleScore score) {
+        this(starts, masterSeed, score, ForkJoinPool.commonPool());
+    }
+    
+    public MultiStartSchedulingStrategy(int starts, long masterSeed, ScheduleScore score, ForkJoinPool pool) {
+        if (starts <= 0) {
+            throw new IllegalArgumentException("Need at least one start");
+        }
+        this.starts = starts;
+        this.masterSeed = masterSeed;
+        this.score = Objects.requireNonNull(score);
+        this.pool = Objects.requireNonNull(pool);
+    }
+    
+    @Override
+    public void generate(Schedule schedule) {
+        List<Employee> roster = new ArrayList<>(schedule.getEmployees());
+        StaffingLevels staffing = schedule.getStaffing();
+        SplittableRandom master = new SplittableRandom(masterSeed);
+        List<ForkJoinTask<Schedule>> runs = new ArrayList<>(starts);
+        for (int i = 0; i < starts; i++) {
+            SplittableRandom random = i == 0 ? null : master.split();
+            runs.add(ForkJoinTask.adapt(() -> {
+                Schedule candidate = new Schedule(new GreedySchedulingStrategy(random));
+                candidate.setStaffing(staffing);
+                candidate.addEmployees(Schedule.copyRoster(roster));
+                candidate.getStrategy().generate(candidate); // Straight to the strategy: no snapshot to publish
+                return candidate;
+            }));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(runs)));
+        
+        Schedule best = null;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (ForkJoinTask<Schedule> run : runs) {
+            Schedule candidate = run.join();
+            double candidateScore = score.score(candidate);
+            if (candidateScore > bestScore) {
+                best = candidate;
+                bestScore = candidateScore;
+            }
+        }
+        
+        // Replay the winner onto the real employees; copy i stands for roster entry i
+        schedule.clearSchedule();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                for (Employee copy : best.staffOf(day, shift)) {
+                    schedule.assignToSlot(roster.get(copy.getRow()), day, shift);
+                }
+            }
+        }
+    }
+    
+    public int getStarts() {
+        return starts;
+    }
+    
+    @Override
+    public String getName() {
+        return "Multi-start greedy (" + starts + " starts)";
+    }
+    
+    // The result depends only on the seed and the number of starts (and the score, which can
+    // only be recognized when it is the default)
+    @Override
+    public String getCacheKey() {
+        return score == ScheduleScore.DEFAULT ? "multi-start/" + starts + "/" + masterSeed : null;
+    }
+}
@@ -0,0 +1,218 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Shift;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+// Parallel engine mode for Schedule. Days are only coupled through the weekly cap, so:
+//   1. every employee's weekly budget is split up front into at most maxDays eligible days
+//      (days they have preferences on first), in parallel over roster ranges;
+//   2. each day's three shifts are then solved on its own ForkJoin task, using only employees
+//      budgeted for that day, so the cap and one-shift-per-day hold without any shared state;
+//   3. Schedule applies the result and reconciles understaffed slots sequentially.
+// Employees are only read during 1 and 2; all writes happen in Schedule afterwards.
+class ParallelDayScheduler {
+    private static final int BUDGET_CHUNK = 4096;
+
+    private final Employee[] roster;
+    private final PreferenceIndex preferences;
+    private final StaffingLevels staffing;
+    private final int maxDays;
+
+    ParallelDayScheduler(List<Employee> employees, PreferenceIndex preferences, StaffingLevels staffing, int maxDays) {
+        this.roster = employees.toArray(new Employee[0]);
+        this.preferences = preferences;
+        this.staffing = staffing;
+        this.maxDays = maxDays;
+    }
+
+    // Result: [day][shift] -> roster positions of the employees picked, in pick order
+    int[][][] solve(ForkJoinPool pool) {
+        byte[] budgets = new byte[roster.length];
+        pool.invoke(new BudgetTask(budgets, 0, roster.length));
+
+        DayOfWeek[] days = DayOfWeek.values();
+        int[][][] picks = new int[days.length][][];
+        List<ForkJoinTask<?>> dayTasks = new ArrayList<>();
+        for (DayOfWeek day : days) {
+            dayTasks.add(ForkJoinTask.adapt(() -> picks[day.ordinal()] = solveDay(day, budgets)));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(dayTasks)));
+        return picks;
+    }
+
+    // Split the weekly budget: preferred days first, then the rest, each group rotated by roster
+    // position so that the supply of employees is spread evenly over the week
+    private byte budgetFor(int id) {
+        Employee employee = roster[id];
+        DayOfWeek[] days = DayOfWeek.values();
+        int budget = 0;
+        int granted = 0;
+        for (int pass = 0; pass < 2 && granted < maxDays; pass++) {
+            for (int i = 0; i < days.length && granted < maxDays; i++) {
+                DayOfWeek day = days[(id + i) % days.length];
+                boolean preferred = employee.hasPreferences(day);
+                if (preferred == (pass == 0)) {
+                    budget |= 1 << day.ordinal();
+                    granted++;
+                }
+            }
+        }
+        return (byte) budget;
+    }
+
+    private class BudgetTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L; // Never serialized; keeps -Xlint:all quiet
+
+        private final byte[] budgets;
+        private final int from;
+        private final int to;
+
+        BudgetTask(byte[] budgets, int from, int to) {
+            this.budgets = budgets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BUDGET_CHUNK) {
+                for (int id = from; id < to; id++) {
+                    budgets[id] = budgetFor(id);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BudgetTask(budgets, from, mid), new BudgetTask(budgets, mid, to));
+        }
+    }
+
+    // Same rules as the sequential fill stages, restricted to one day: one person at a time to the
+    // shift nearest its minimum (least popular first on ties), then to the shift furthest from its
+    // target among those with their minimum (most popular first); preferred employees win
+    private int[][] solveDay(DayOfWeek day, byte[] budgets) {
+        DaySolve solve = new DaySolve(day, budgets);
+        Shift[] shifts = Shift.values();
+        int[] minimum = new int[shifts.length];
+        int[] target = new int[shifts.length];
+        int[] popularity = new int[shifts.length];
+        for (Shift shift : shifts) {
+            minimum[shift.ordinal()] = staffing.minimum(day, shift);
+            target[shift.ordinal()] = staffing.target(day, shift);
+            popularity[shift.ordinal()] = preferences.count(day, shift);
+        }
+        solve.fillByDeficit(minimum, popularity, false);
+        for (int s = 0; s < shifts.length; s++) {
+            if (solve.staffCount[s] < minimum[s]) {
+                target[s] = 0; // Topped up only once it has its minimum
+            }
+        }
+        solve.fillByDeficit(target, popularity, true);
+        return solve.picks();
+    }
+
+    // Working state of one day. The roster is walked lazily from a day-specific starting point
+    // (spreading load over employees), and the cursors only move forward, so a day costs about
+    // as many steps as it takes to find its staff rather than a full roster scan.
+    private class DaySolve {
+        private final DayOfWeek day;
+        private final byte[] budgets;
+        private final int dayBit;
+        private final int start;
+        private final int[][] staff;
+        private final int[] staffCount;
+        private final int[] preferredCursor;
+        private final int[] anyCursor;
+        private final BitSet picked = new BitSet();
+
+        DaySolve(DayOfWeek day, byte[] budgets) {
+            int shifts = Shift.values().length;
+            this.day = day;
+            this.budgets = budgets;
+            this.dayBit = 1 << day.ordinal();
+            this.start = (int) ((long) roster.length * day.ordinal() / DayOfWeek.values().length);
+            this.staff = new int[shifts][];
+            for (Shift shift : Shift.values()) {
+                staff[shift.ordinal()] = new int[staffing.target(day, shift)];
+            }
+            this.staffCount = new int[shifts];
+            this.preferredCursor = new int[shifts];
+            this.anyCursor = new int[shifts];
+        }
+
+        // Give one person at a time to the shift with the smallest (topping up: largest) shortfall
+        // against goal, ties to the less (more) popular shift and then the earlier (later) one, until
+        // every shift has its goal or nobody is left for it
+        void fillByDeficit(int[] goal, int[] popularity, boolean toppingUp) {
+            boolean[] exhausted = new boolean[staff.length];
+            while (true) {
+                int best = -1;
+                for (int s = 0; s < staff.length; s++) {
+                    int deficit = goal[s] - staffCount[s];
+                    if (exhausted[s] || deficit <= 0) {
+                        continue;
+                    }
+                    int bestDeficit = best < 0 ? 0 : goal[best] - staffCount[best];
+                    if (best < 0 || (toppingUp ? deficit > bestDeficit : deficit < bestDeficit)
+                        || (deficit == bestDeficit && (toppingUp
+                            ? popularity[s] >= popularity[best] : popularity[s] < popularity[best]))) {
+                        best = s;
+                    }
+                }
+                if (best < 0) {
+                    return;
+                }
+                int before = staffCount[best];
+                fill(Shift.values()[best], before + 1);
+                exhausted[best] = staffCount[best] == before;
+            }
+        }
+
+        void fill(Shift shift, int target) {
+            int s = shift.ordinal();
+            while (staffCount[s] < target && preferredCursor[s] < roster.length) {
+                int id = candidateAt(preferredCursor[s]++);
+                if (id >= 0 && roster[id].prefersShift(day, shift)) {
+                    pick(s, id);
+                }
+            }
+            while (staffCount[s] < target && anyCursor[s] < roster.length) {
+                int id = candidateAt(anyCursor[s]++);
+                if (id >= 0) {
+                    pick(s, id);
+                }
+            }
+        }
+
+        // Roster position at this step of the day's walk, or -1 if not budgeted today or already on shift
+        private int candidateAt(int step) {
+            int id = (start + step) % roster.length;
+            if ((budgets[id] & dayBit) == 0) {
+                return -1;
+            }
+            return picked.get(id) ? -1 : id;
+        }
+
+        private void pick(int s, int id) {
+            staff[s][staffCount[s]++] = id;
+            picked.set(id);
+        }
+
+        int[][] picks() {
+            int[][] result = new int[staff.length][];
+            for (int s = 0; s < staff.length; s++) {
+                result[s] = Arrays.copyOf(staff[s], staffCount[s]);
+            }
+            return result;
+        }
+    }
+
+    Employee employee(int id) {
+        return roster[id];
+    }
+}
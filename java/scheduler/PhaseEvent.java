@@ -0,0 +1,37 @@
+package scheduler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event for one scheduling phase (see Schedule.runPhase). Costs nothing unless a recording enables it.
+@Name("scheduler.Phase")
+@Label("Schedule Phase")
+@Category("Scheduler")
+@Description("One phase of schedule generation, with the candidate searches it made")
+class PhaseEvent extends jdk.jfr.Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Employees")
+    int employees;
+
+    @Label("Net Assignments")
+    long assignments;
+
+    @Label("Candidate Lookups")
+    long candidateLookups;
+
+    @Label("Buckets Scanned")
+    long bucketsScanned;
+
+    @Label("Preferred Picks")
+    long preferredPicks;
+
+    @Label("Fallback Picks")
+    long fallbackPicks;
+
+    @Label("Failed Fills")
+    long failedFills;
+}
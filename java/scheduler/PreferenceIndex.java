@@ -0,0 +1,101 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.PreferenceListener;
+import dtos.Shift;
+
+import java.util.*;
+
+// Day x shift preference counts plus the inverted lists (slot -> employees preferring it).
+// Schedule registers every employee it accepts, and Employee.addPreference/removePreference keep
+// the index current, so slot popularity is a constant-time lookup instead of a roster scan.
+class PreferenceIndex implements PreferenceListener {
+    private final int[][] counts;
+    private final List<List<Set<Employee>>> employeesBySlot;
+    private final PreferenceListener onChange; // Told after any preference of a registered employee changes
+    
+    PreferenceIndex(PreferenceListener onChange) {
+        this.onChange = onChange;
+        this.counts = new int[DayOfWeek.values().length][Shift.values().length];
+        this.employeesBySlot = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            List<Set<Employee>> byShift = new ArrayList<>();
+            for (Shift shift : Shift.values()) {
+                byShift.add(new LinkedHashSet<>());
+            }
+            employeesBySlot.add(byShift);
+        }
+    }
+    
+    // Index an employee's current preferences and follow any added later
+    void register(Employee employee) {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                if (employee.prefersShift(day, shift)) {
+                    preferenceAdded(employee, day, shift);
+                }
+            }
+        }
+        employee.addPreferenceListener(this);
+    }
+    
+    // Size the inverted lists for a bulk registration so they are not rehashed while growing;
+    // only lists that are still empty are replaced
+    void reserve(Collection<Employee> employees) {
+        int[][] expected = new int[DayOfWeek.values().length][Shift.values().length];
+        for (Employee employee : employees) {
+            for (DayOfWeek day : DayOfWeek.values()) {
+                for (int mask = employee.getStore().preferenceMask(employee.getRow(), day); mask != 0; mask &= mask - 1) {
+                    expected[day.ordinal()][Integer.numberOfTrailingZeros(mask)]++;
+                }
+            }
+        }
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                List<Set<Employee>> byShift = employeesBySlot.get(day.ordinal());
+                if (byShift.get(shift.ordinal()).isEmpty()) {
+                    byShift.set(shift.ordinal(), LinkedHashSet.newLinkedHashSet(expected[day.ordinal()][shift.ordinal()]));
+                }
+            }
+        }
+    }
+    
+    // Drop an employee leaving the roster
+    void unregister(Employee employee) {
+        employee.removePreferenceListener(this);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                if (employee.prefersShift(day, shift)) {
+                    preferenceRemoved(employee, day, shift);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void preferenceAdded(Employee employee, DayOfWeek day, Shift shift) {
+        if (employeesBySlot.get(day.ordinal()).get(shift.ordinal()).add(employee)) {
+            counts[day.ordinal()][shift.ordinal()]++;
+            onChange.preferenceAdded(employee, day, shift);
+        }
+    }
+    
+    @Override
+    public void preferenceRemoved(Employee employee, DayOfWeek day, Shift shift) {
+        if (employeesBySlot.get(day.ordinal()).get(shift.ordinal()).remove(employee)) {
+            counts[day.ordinal()][shift.ordinal()]--;
+            onChange.preferenceRemoved(employee, day, shift);
+        }
+    }
+    
+    // Number of employees who prefer this shift on this day
+    int count(DayOfWeek day, Shift shift) {
+        return counts[day.ordinal()][shift.ordinal()];
+    }
+    
+    // Employees who prefer this shift on this day, in the order the preference was added
+    Collection<Employee> employeesPreferring(DayOfWeek day, Shift shift) {
+        return Collections.unmodifiableSet(employeesBySlot.get(day.ordinal()).get(shift.ordinal()));
+    }
+}
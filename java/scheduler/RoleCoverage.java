@@ -0,0 +1,57 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Role;
+import dtos.Shift;
+
+import java.util.*;
+
+// Holders of each role on each day/shift slot, kept in step with the schedule by Schedule.
+// Alongside the counts, each slot has one bit per role with at least one holder, so the roles a
+// slot still lacks are required & ~covered, and whether a candidate brings one is a single AND.
+class RoleCoverage {
+    private static final int SHIFTS = Shift.values().length;
+    private static final int ROLES = Role.values().length;
+
+    private final int[] holders = new int[DayOfWeek.values().length * SHIFTS * ROLES]; // [slot * ROLES + role]
+    private final int[] covered = new int[DayOfWeek.values().length * SHIFTS];          // [slot] -> Role bits
+
+    // Every slot empty again
+    void reset() {
+        Arrays.fill(holders, 0);
+        Arrays.fill(covered, 0);
+    }
+
+    // Record someone holding these roles joining (+1) or leaving (-1) a slot
+    void staffChanged(DayOfWeek day, Shift shift, int roleMask, int delta) {
+        int slot = day.ordinal() * SHIFTS + shift.ordinal();
+        for (int roles = roleMask; roles != 0; roles &= roles - 1) {
+            int role = Integer.numberOfTrailingZeros(roles);
+            int count = holders[slot * ROLES + role] += delta;
+            if (count > 0) {
+                covered[slot] |= 1 << role;
+            } else {
+                covered[slot] &= ~(1 << role);
+            }
+        }
+    }
+
+    // Roles with at least one holder on the slot
+    int covered(DayOfWeek day, Shift shift) {
+        return covered[day.ordinal() * SHIFTS + shift.ordinal()];
+    }
+
+    // Required roles that someone holding roleMask is the only holder of on the slot, which
+    // taking them off would leave uncovered
+    int heldAlone(DayOfWeek day, Shift shift, int roleMask, int required) {
+        int slot = day.ordinal() * SHIFTS + shift.ordinal();
+        int alone = 0;
+        for (int roles = roleMask & required; roles != 0; roles &= roles - 1) {
+            int role = Integer.numberOfTrailingZeros(roles);
+            if (holders[slot * ROLES + role] == 1) {
+                alone |= 1 << role;
+            }
+        }
+        return alone;
+    }
+}
@@ -0,0 +1,496 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.EmployeeStore;
+import dtos.Role;
+import dtos.Shift;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// Roster and preference files for batch runs, read through a memory-mapped FileChannel.
+//
+// CSV: one row per preference, "name,day,shift". A row with only a name adds the employee
+// without preferences; an optional "name,day,shift" header is skipped. Days are full names or
+// their first three letters, shifts use the same tokens as the interactive prompt (Shift.fromInput).
+//
+// Roles: a separate CSV with one row per employee, "name,roles", the roles separated by ';' and
+// spelled as in Role.fromInput; an optional "name,roles" header is skipped. Roles are not part of
+// the roster formats, so a roster written back out does not carry them.
+//
+// Binary ("ESR1"): big-endian int magic, int employee count, then per employee an unsigned short
+// UTF-8 name length, the name bytes and an int with the 21 preference bits (day * 3 + shift).
+//
+// Parsing works on the mapped bytes directly: a String is only created once per distinct
+// employee, never per row, as long as names are ASCII. Names are matched ignoring case exactly as
+// Schedule's name index does (Schedule.nameKey), so two rows name the same employee here if and
+// only if the Schedule would take them for the same one; a name with other characters is decoded
+// and folded on each of its rows to get there.
+public final class RosterFiles {
+    static final int BINARY_MAGIC = 0x45535231; // "ESR1"
+
+    private static final byte[][] DAY_TOKENS = dayTokens(false);
+    private static final byte[][] DAY_ABBREVIATIONS = dayTokens(true);
+    private static final byte[][][] SHIFT_TOKENS = shiftTokens();
+    private static final byte[][] HEADER = {
+        "name".getBytes(StandardCharsets.US_ASCII), "day".getBytes(StandardCharsets.US_ASCII),
+        "shift".getBytes(StandardCharsets.US_ASCII)
+    };
+
+    private RosterFiles() {
+    }
+
+    // Result of a load: the employees in file order plus the number of preference rows read
+    public static final class Roster {
+        private final List<Employee> employees;
+        private final long preferenceRows;
+
+        Roster(List<Employee> employees, long preferenceRows) {
+            this.employees = employees;
+            this.preferenceRows = preferenceRows;
+        }
+
+        public List<Employee> getEmployees() {
+            return employees;
+        }
+
+        public long getPreferenceRows() {
+            return preferenceRows;
+        }
+    }
+
+    // Read a CSV or binary roster; the format is detected from the first four bytes
+    public static Roster read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + ": roster files larger than 2 GB are not supported");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (size >= 4 && buffer.getInt(0) == BINARY_MAGIC) {
+                return readBinary(file, buffer);
+            }
+            return readCsv(file.toString(), buffer);
+        }
+    }
+
+    // Give the named employees the roles listed in a roles file; returns the number of rows applied.
+    // Every name must be one of employees (ignoring case).
+    public static int readRoles(Path file, List<Employee> employees) throws IOException {
+        Map<String, Employee> byName = HashMap.newHashMap(employees.size());
+        for (Employee employee : employees) {
+            byName.put(Schedule.nameKey(employee.getName()), employee);
+        }
+        int rows = 0;
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(file)) {
+            lineNumber++;
+            String[] fields = line.split(",", -1);
+            if (line.isBlank() || (lineNumber == 1 && fields.length == 2 && fields[0].trim().equalsIgnoreCase("name")
+                    && fields[1].trim().equalsIgnoreCase("roles"))) {
+                continue; // Blank, or the header; someone actually named "name" still gets their row
+            }
+            if (fields.length != 2) {
+                throw new IOException(file + ":" + lineNumber + ": expected name,roles");
+            }
+            Employee employee = byName.get(Schedule.nameKey(fields[0].trim()));
+            if (employee == null) {
+                throw new IOException(file + ":" + lineNumber + ": unknown employee '" + fields[0].trim() + "'");
+            }
+            for (String token : fields[1].split(";")) {
+                if (token.isBlank()) {
+                    continue;
+                }
+                Role role = Role.fromInput(token);
+                if (role == null) {
+                    throw new IOException(file + ":" + lineNumber + ": unknown role '" + token.trim() + "'");
+                }
+                employee.addRole(role);
+            }
+            rows++;
+        }
+        return rows;
+    }
+
+    // Write employees and their preferences in the binary format
+    public static void writeBinary(Path file, List<Employee> employees) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.BIG_ENDIAN);
+            buffer.putInt(BINARY_MAGIC).putInt(employees.size());
+            for (Employee employee : employees) {
+                byte[] name = employee.getName().getBytes(StandardCharsets.UTF_8);
+                if (name.length > 0xFFFF) {
+                    throw new IOException("Employee name too long for the binary format: " + employee.getName());
+                }
+                int record = 2 + name.length + 4;
+                if (buffer.remaining() < record) {
+                    drain(channel, buffer);
+                }
+                // A record longer than the whole buffer (a name near the limit) goes out on its own
+                ByteBuffer target = record <= buffer.capacity() ? buffer : ByteBuffer.allocate(record);
+                target.putShort((short) name.length).put(name).putInt(preferenceBits(employee));
+                if (target != buffer) {
+                    drain(channel, target);
+                }
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // All of an employee's preferences, bit day * 3 + shift
+    static int preferenceBits(Employee employee) {
+        int bits = 0;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            bits |= employee.getStore().preferenceMask(employee.getRow(), day) << (day.ordinal() * Shift.values().length);
+        }
+        return bits;
+    }
+
+    private static Roster readBinary(Path file, ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.BIG_ENDIAN).position(4);
+        try {
+            int count = buffer.getInt();
+            if (count < 0) {
+                throw new IOException(file + ": negative employee count");
+            }
+            EmployeeStore store = new EmployeeStore(count);
+            List<Employee> employees = new ArrayList<>(count);
+            long preferenceRows = 0;
+            byte[] nameBytes = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int length = buffer.getShort() & 0xFFFF;
+                if (nameBytes.length < length) {
+                    nameBytes = new byte[length];
+                }
+                buffer.get(nameBytes, 0, length);
+                Employee employee = store.add(new String(nameBytes, 0, length, StandardCharsets.UTF_8));
+                int bits = buffer.getInt();
+                for (DayOfWeek day : DayOfWeek.values()) {
+                    for (Shift shift : Shift.values()) {
+                        if ((bits & (1 << (day.ordinal() * Shift.values().length + shift.ordinal()))) != 0) {
+                            employee.addPreference(day, shift);
+                            preferenceRows++;
+                        }
+                    }
+                }
+                employees.add(employee);
+            }
+            return new Roster(employees, preferenceRows);
+        } catch (BufferUnderflowException e) {
+            throw new IOException(file + ": truncated binary roster", e);
+        }
+    }
+
+    // CSV rows from any buffer (a request body, say); source names it in error messages
+    static Roster readCsv(String source, ByteBuffer buffer) throws IOException {
+        EmployeeStore store = new EmployeeStore(Math.min(1024, buffer.limit() / 16 + 1)); // Bodies can be one row
+        List<Employee> employees = new ArrayList<>();
+        NameTable names = new NameTable(buffer);
+        long preferenceRows = 0;
+
+        int limit = buffer.limit();
+        int lineStart = 0;
+        int lineNumber = 0;
+        int[] bounds = new int[6]; // start/end of the name, day and shift fields
+        while (lineStart < limit) {
+            lineNumber++;
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int next = lineEnd + 1;
+
+            // Split into up to three trimmed fields
+            Arrays.fill(bounds, lineStart);
+            int field = 0;
+            int fieldStart = lineStart;
+            for (int i = lineStart; i <= lineEnd; i++) {
+                if (i == lineEnd || buffer.get(i) == ',') {
+                    if (field == 3) {
+                        throw new IOException(source + ":" + lineNumber + ": expected name,day,shift");
+                    }
+                    bounds[field * 2] = trimStart(buffer, fieldStart, i);
+                    bounds[field * 2 + 1] = trimEnd(buffer, bounds[field * 2], i);
+                    field++;
+                    fieldStart = i + 1;
+                }
+            }
+            lineStart = next;
+
+            boolean hasName = bounds[1] > bounds[0];
+            boolean hasDay = field > 1 && bounds[3] > bounds[2];
+            boolean hasShift = field > 2 && bounds[5] > bounds[4];
+            if (!hasName) {
+                if (hasDay || hasShift) {
+                    throw new IOException(source + ":" + lineNumber + ": missing employee name");
+                }
+                continue; // Blank line
+            }
+            if (lineNumber == 1 && field == 3 && equalsIgnoreCase(buffer, bounds[0], bounds[1], HEADER[0])
+                    && equalsIgnoreCase(buffer, bounds[2], bounds[3], HEADER[1])
+                    && equalsIgnoreCase(buffer, bounds[4], bounds[5], HEADER[2])) {
+                continue; // Header; an employee actually named "name" on line 1 is still read
+            }
+
+            int id = names.find(bounds[0], bounds[1]);
+            if (id < 0) {
+                String name = new String(bytes(buffer, bounds[0], bounds[1]), StandardCharsets.UTF_8);
+                id = names.insert(bounds[0], bounds[1], employees.size());
+                employees.add(store.add(name));
+            }
+            if (!hasDay && !hasShift) {
+                continue;
+            }
+
+            DayOfWeek day = hasDay ? parseDay(buffer, bounds[2], bounds[3]) : null;
+            if (day == null) {
+                throw new IOException(source + ":" + lineNumber + ": unknown day '" + text(buffer, bounds[2], bounds[3]) + "'");
+            }
+            Shift shift = hasShift ? parseShift(buffer, bounds[4], bounds[5]) : null;
+            if (shift == null) {
+                throw new IOException(source + ":" + lineNumber + ": unknown shift '" + text(buffer, bounds[4], bounds[5]) + "'");
+            }
+            employees.get(id).addPreference(day, shift);
+            preferenceRows++;
+        }
+        return new Roster(employees, preferenceRows);
+    }
+
+    private static int trimStart(ByteBuffer buffer, int from, int to) {
+        while (from < to && isBlank(buffer.get(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(ByteBuffer buffer, int from, int to) {
+        while (to > from && isBlank(buffer.get(to - 1))) {
+            to--;
+        }
+        return to;
+    }
+
+    private static boolean isBlank(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static DayOfWeek parseDay(ByteBuffer buffer, int from, int to) {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (equalsIgnoreCase(buffer, from, to, DAY_TOKENS[day.ordinal()])
+                    || equalsIgnoreCase(buffer, from, to, DAY_ABBREVIATIONS[day.ordinal()])) {
+                return day;
+            }
+        }
+        return null;
+    }
+
+    private static Shift parseShift(ByteBuffer buffer, int from, int to) {
+        for (Shift shift : Shift.values()) {
+            for (byte[] token : SHIFT_TOKENS[shift.ordinal()]) {
+                if (equalsIgnoreCase(buffer, from, to, token)) {
+                    return shift;
+                }
+            }
+        }
+        return null;
+    }
+
+    // token is lower-case ASCII
+    private static boolean equalsIgnoreCase(ByteBuffer buffer, int from, int to, byte[] token) {
+        if (to - from != token.length) {
+            return false;
+        }
+        for (int i = 0; i < token.length; i++) {
+            if (toLowerAscii(buffer.get(from + i)) != token[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte toLowerAscii(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static byte[] bytes(ByteBuffer buffer, int from, int to) {
+        byte[] result = new byte[to - from];
+        buffer.get(from, result);
+        return result;
+    }
+
+    private static String text(ByteBuffer buffer, int from, int to) {
+        return new String(bytes(buffer, from, to), StandardCharsets.UTF_8);
+    }
+
+    private static byte[][] dayTokens(boolean abbreviated) {
+        byte[][] tokens = new byte[DayOfWeek.values().length][];
+        for (DayOfWeek day : DayOfWeek.values()) {
+            String name = day.getDisplayName().toLowerCase();
+            tokens[day.ordinal()] = (abbreviated ? name.substring(0, 3) : name).getBytes(StandardCharsets.US_ASCII);
+        }
+        return tokens;
+    }
+
+    private static byte[][][] shiftTokens() {
+        byte[][][] tokens = new byte[Shift.values().length][][];
+        for (Shift shift : Shift.values()) {
+            String[] accepted = shift.getInputTokens();
+            tokens[shift.ordinal()] = new byte[accepted.length][];
+            for (int i = 0; i < accepted.length; i++) {
+                tokens[shift.ordinal()][i] = accepted[i].getBytes(StandardCharsets.US_ASCII);
+            }
+        }
+        return tokens;
+    }
+
+    // Open-addressing table from a name's bytes in the mapped file to the employee's position,
+    // so repeated rows for the same employee are matched without building a String. Hashes and
+    // comparisons are over the name folded as Schedule.nameKey folds it: for ASCII bytes that is
+    // lower-casing each byte; a name with other bytes is decoded and folded (some non-ASCII
+    // characters fold to ASCII ones, so both kinds hash the same folded chars).
+    private static final class NameTable {
+        private final ByteBuffer buffer;
+        private int[] slots;        // employee position + 1, 0 = empty
+        private int[] nameStart;    // per employee: where its first row's name sits in the buffer
+        private int[] nameEnd;
+        private int[] hashes;
+        private String[] foldedKeys; // per employee: Schedule.nameKey of a non-ASCII name, null for ASCII
+        private int size;
+
+        NameTable(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.slots = new int[1024];
+            this.nameStart = new int[256];
+            this.nameEnd = new int[256];
+            this.hashes = new int[256];
+            this.foldedKeys = new String[256];
+        }
+
+        int find(int from, int to) {
+            String key = foldedKey(from, to);
+            int hash = key == null ? hash(from, to) : hash(key);
+            int mask = slots.length - 1;
+            for (int i = hash & mask; slots[i] != 0; i = (i + 1) & mask) {
+                int id = slots[i] - 1;
+                if (hashes[id] == hash && sameName(id, from, to, key)) {
+                    return id;
+                }
+            }
+            return -1;
+        }
+
+        int insert(int from, int to, int id) {
+            if (id == nameStart.length) {
+                nameStart = Arrays.copyOf(nameStart, id * 2);
+                nameEnd = Arrays.copyOf(nameEnd, id * 2);
+                hashes = Arrays.copyOf(hashes, id * 2);
+                foldedKeys = Arrays.copyOf(foldedKeys, id * 2);
+            }
+            nameStart[id] = from;
+            nameEnd[id] = to;
+            foldedKeys[id] = foldedKey(from, to);
+            hashes[id] = foldedKeys[id] == null ? hash(from, to) : hash(foldedKeys[id]);
+            if (++size * 2 > slots.length) {
+                rehash();
+            } else {
+                place(id);
+            }
+            return id;
+        }
+
+        private void rehash() {
+            slots = new int[slots.length * 2];
+            for (int id = 0; id < size; id++) {
+                place(id);
+            }
+        }
+
+        private void place(int id) {
+            int mask = slots.length - 1;
+            int i = hashes[id] & mask;
+            while (slots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            slots[i] = id + 1;
+        }
+
+        // Schedule.nameKey of the decoded name, or null when the bytes are all ASCII
+        private String foldedKey(int from, int to) {
+            for (int i = from; i < to; i++) {
+                if (buffer.get(i) < 0) {
+                    return Schedule.nameKey(text(buffer, from, to));
+                }
+            }
+            return null;
+        }
+
+        // key is the folded name at from..to, or null if it is ASCII
+        private boolean sameName(int id, int from, int to, String key) {
+            String other = foldedKeys[id];
+            if (key != null && other != null) {
+                return key.equals(other);
+            }
+            if (key != null || other != null) {
+                // One ASCII, one not: compare the folded chars with the lower-cased ASCII bytes
+                String folded = key != null ? key : other;
+                int start = key != null ? nameStart[id] : from;
+                int length = key != null ? nameEnd[id] - start : to - from;
+                if (folded.length() != length) {
+                    return false;
+                }
+                for (int i = 0; i < length; i++) {
+                    if (folded.charAt(i) != toLowerAscii(buffer.get(start + i))) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            int start = nameStart[id];
+            if (nameEnd[id] - start != to - from) {
+                return false;
+            }
+            for (int i = 0; i < to - from; i++) {
+                if (toLowerAscii(buffer.get(start + i)) != toLowerAscii(buffer.get(from + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Both hashes run over the folded chars, so a name hashes alike whichever way it is spelled
+        private int hash(int from, int to) {
+            int hash = 0x811C9DC5;
+            for (int i = from; i < to; i++) {
+                hash = (hash ^ toLowerAscii(buffer.get(i))) * 0x01000193;
+            }
+            return hash ^ (hash >>> 16);
+        }
+
+        private static int hash(String folded) {
+            int hash = 0x811C9DC5;
+            for (int i = 0; i < folded.length(); i++) {
+                hash = (hash ^ folded.charAt(i)) * 0x01000193;
+            }
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,1064 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.EmployeeStore;
+import dtos.PreferenceListener;
+import dtos.Role;
+import dtos.RoleListener;
+import dtos.Shift;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+public class Schedule {
+    private Map<DayOfWeek, Map<Shift, List<Employee>>> schedule;
+    private List<Employee> employees; // In joining order, except that a leaver's place goes to the last one (see removeEmployee)
+    private Map<String, Integer> positionsByName; // Case-folded name -> position in employees
+    static final int MIN_EMPLOYEES_PER_SHIFT = 2;
+    static final int TARGET_EMPLOYEES_PER_SHIFT = MIN_EMPLOYEES_PER_SHIFT + 1; // Defaults; see StaffingLevels
+    static final int MAX_DAYS_PER_EMPLOYEE = 5;
+    static final int CONFLICT_LOG_CAPACITY = 1 << 17; // Latest conflicts kept (see ConflictLog)
+    private static final SlotFillEvent SLOT_FILL_EVENTS = new SlotFillEvent(); // Only asked isEnabled()
+    private SplittableRandom random; // Tie-breaker of randomized runs; null keeps the greedy deterministic
+    private CandidateIndex candidates;
+    private SchedulingStrategy strategy;
+    private PreferenceIndex preferences;
+    private final ScheduleMetrics metrics = new ScheduleMetrics();
+    private final CandidateCounters counters = new CandidateCounters();
+    private ScheduleProfile profile; // Per-phase breakdown of the last generation; null unless profiling
+    private StaffingLevels staffing = StaffingLevels.DEFAULT;
+    private SlotCapacity capacity = new SlotCapacity(staffing);
+    private final RoleCoverage roles = new RoleCoverage();
+    private final ConflictLog conflicts = new ConflictLog(CONFLICT_LOG_CAPACITY);
+    private volatile ScheduleSnapshot snapshot = ScheduleSnapshot.EMPTY; // What readers on other threads see
+    private long version;
+    private boolean fullPublish = true; // The next publish copies everything (after a reset)
+    private final Set<Employee> changedEmployees = Collections.newSetFromMap(new IdentityHashMap<>()); // Since the last publish
+    private int changedSlots; // Bits day * 3 + shift of slots whose staff changed since the last publish
+    private final Set<Integer> replacedPositions = new HashSet<>(); // Roster positions given up or taken over since then
+    private final RoleListener roleListener = this::rolesChanged; // Registered on every employee on the roster
+    private ScheduleCache cache; // Solved weeks to reuse; null solves every time
+    private ScheduleCache.Key cacheKey; // Key of the roster as it stands, or null once it has changed
+    private String cacheKeyStrategy; // Strategy cache key that cacheKey was computed for
+    private ScheduleCache.Key weekKey; // Key the current week was solved or restored for; null once edited
+    
+    public Schedule() {
+        this(new GreedySchedulingStrategy());
+    }
+    
+    public Schedule(SchedulingStrategy strategy) {
+        this.strategy = strategy;
+        this.schedule = new HashMap<>();
+        this.employees = new ArrayList<>();
+        this.positionsByName = new HashMap<>();
+        this.preferences = new PreferenceIndex(new PreferenceListener() {
+            @Override
+            public void preferenceAdded(Employee employee, DayOfWeek day, Shift shift) {
+                preferencesChanged(employee, day, shift, 1);
+            }
+            
+            @Override
+            public void preferenceRemoved(Employee employee, DayOfWeek day, Shift shift) {
+                preferencesChanged(employee, day, shift, -1);
+            }
+        });
+        
+        // Initialize schedule structure
+        for (DayOfWeek day : DayOfWeek.values()) {
+            schedule.put(day, new HashMap<>());
+            for (Shift shift : Shift.values()) {
+                schedule.get(day).put(shift, new ArrayList<>());
+            }
+        }
+    }
+    
+    // Add an employee to the system. Names are unique ignoring case; returns false for a duplicate.
+    public boolean addEmployee(Employee employee) {
+        if (positionsByName.putIfAbsent(nameKey(employee.getName()), employees.size()) != null) {
+            return false;
+        }
+        employees.add(employee);
+        cacheKey = null;
+        metrics.employeeAdded(employee.getDaysWorked());
+        preferences.register(employee);
+        employee.addRoleListener(roleListener);
+        if (candidates != null) {
+            candidates.add(employee);
+        }
+        return true;
+    }
+    
+    // Add many employees in one pass; returns the ones rejected as duplicates, in input order
+    public List<Employee> addEmployees(Collection<Employee> newEmployees) {
+        if (positionsByName.isEmpty()) {
+            // Sized once up front: growing a million-entry index step by step dominates a bulk load
+            positionsByName = HashMap.newHashMap(newEmployees.size());
+            preferences.reserve(newEmployees);
+        }
+        return addEmployees(newEmployees.iterator());
+    }
+    
+    public List<Employee> addEmployees(Iterator<Employee> newEmployees) {
+        List<Employee> duplicates = new ArrayList<>();
+        while (newEmployees.hasNext()) {
+            Employee employee = newEmployees.next();
+            if (!addEmployee(employee)) {
+                duplicates.add(employee);
+            }
+        }
+        return duplicates;
+    }
+    
+    // The roster's employee with this name (ignoring case), or null
+    private Employee employeeNamed(String name) {
+        Integer position = positionsByName.get(nameKey(name));
+        return position == null ? null : employees.get(position);
+    }
+    
+    // Check whether an employee with this name exists, ignoring case
+    public boolean hasEmployee(String name) {
+        return positionsByName.containsKey(nameKey(name));
+    }
+    
+    // Keep the candidate index in step with preference edits made after a solve
+    private void preferencesChanged(Employee employee, DayOfWeek day, Shift shift, int delta) {
+        cacheKey = null;
+        if (!fullPublish) {
+            changedEmployees.add(employee);
+        }
+        if (candidates != null) {
+            candidates.refresh(employee);
+        }
+        if (employee.getAssignedShift(day) == shift) {
+            metrics.preferenceHitChanged(delta);
+        }
+    }
+    
+    // Keep role coverage and the candidate index in step with role edits. Once a week has been
+    // published, slots left lacking a required role the edit touched (the employee's own shifts
+    // when a role is taken away, any slot still missing a role they gain) are repaired right away
+    // by the role stage, and the result is published like an applied change.
+    private void rolesChanged(Employee employee, int previousRoles) {
+        cacheKey = null;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            Shift shift = employee.getAssignedShift(day);
+            if (shift != null) {
+                roles.staffChanged(day, shift, previousRoles, -1);
+                roles.staffChanged(day, shift, roleMask(employee), 1);
+            }
+        }
+        if (candidates != null) {
+            candidates.refresh(employee);
+        }
+        if (version == 0 || !staffing.requiresRoles()) {
+            return; // Nothing solved yet: the next generation takes the roles as they are
+        }
+        int changedRoles = previousRoles ^ roleMask(employee);
+        int slots = 0;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                if ((staffing.requiredRoles(day, shift) & ~roles.covered(day, shift) & changedRoles) != 0) {
+                    slots |= 1 << (day.ordinal() * Shift.values().length + shift.ordinal());
+                }
+            }
+        }
+        if (slots != 0) {
+            if (candidates == null) {
+                candidates = new CandidateIndex(employees, preferences, MAX_DAYS_PER_EMPLOYEE, counters);
+            }
+            fillRequiredRoles(slots);
+            publish();
+        }
+    }
+    
+    // Same folding String.equalsIgnoreCase applies char by char, so the index agrees with it
+    static String nameKey(String name) {
+        int i = 0;
+        while (i < name.length() && fold(name.charAt(i)) == name.charAt(i)) {
+            i++;
+        }
+        if (i == name.length()) {
+            return name; // Nothing to fold, no copy
+        }
+        char[] folded = name.toCharArray();
+        for (; i < folded.length; i++) {
+            folded[i] = fold(folded[i]);
+        }
+        return new String(folded);
+    }
+    
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+    
+    // Generate the complete schedule with the current strategy (two-stage greedy by default).
+    // With a cache set, a roster already solved by an equivalent strategy gets the stored week back.
+    public void generateSchedule() {
+        if (profile != null) {
+            profile.clear();
+        }
+        String strategyKey = cache == null ? null : strategy.getCacheKey();
+        if (strategyKey == null) {
+            runPhase("total (" + strategy.getName() + ")", () -> {
+                strategy.generate(this);
+                runPhase("resolve conflicts", this::resolveConflicts);
+                runPhase("publish", this::publish);
+            });
+            return;
+        }
+        
+        if (cacheKey == null || !strategyKey.equals(cacheKeyStrategy)) {
+            cacheKey = ScheduleCache.key(employees, staffing, strategyKey);
+            cacheKeyStrategy = strategyKey;
+        }
+        ScheduleCache.Result cached = cache.get(cacheKey);
+        if (cached != null) {
+            runPhase("total (cached " + strategy.getName() + ")", () -> {
+                // Nothing to redo when the week on show (and its snapshot) already is this result
+                if (!cacheKey.equals(weekKey)) {
+                    runPhase("restore", () -> restore(cached));
+                    runPhase("resolve conflicts", this::resolveConflicts);
+                    runPhase("publish", this::publish);
+                }
+            });
+        } else {
+            runPhase("total (" + strategy.getName() + ")", () -> {
+                strategy.generate(this);
+                runPhase("resolve conflicts", this::resolveConflicts);
+                runPhase("publish", this::publish);
+            });
+            cache.put(cacheKey, snapshot);
+        }
+        weekKey = cacheKey;
+    }
+    
+    // Replay a cached week onto this roster; staff ids are positions in employees
+    private void restore(ScheduleCache.Result cached) {
+        clearSchedule();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                int slot = day.ordinal() * Shift.values().length + shift.ordinal();
+                for (int k = 0; k < cached.staffCount(slot); k++) {
+                    assignToSlot(employees.get(cached.staffId(slot, k)), day, shift);
+                }
+            }
+        }
+    }
+    
+    // Headcount wanted on each slot from the next generation on; the current week is kept as it is
+    public void setStaffing(StaffingLevels staffing) {
+        this.staffing = Objects.requireNonNull(staffing);
+        capacity = new SlotCapacity(staffing);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                int size = schedule.get(day).get(shift).size();
+                if (size > 0) {
+                    capacity.staffChanged(day, shift, size);
+                }
+            }
+        }
+        metrics.staffingChanged(staffing);
+        cacheKey = null;
+    }
+    
+    public StaffingLevels getStaffing() {
+        return staffing;
+    }
+    
+    // Reuse solved weeks from this cache in generateSchedule (it may be shared); null turns caching off
+    public void setCache(ScheduleCache cache) {
+        this.cache = cache;
+    }
+    
+    public ScheduleCache getCache() {
+        return cache;
+    }
+    
+    // Collect a ScheduleProfile on every generation (timings, allocation and candidate counters per phase)
+    public void setProfiling(boolean enabled) {
+        profile = enabled ? new ScheduleProfile() : null;
+    }
+    
+    // Breakdown of the last generation, or null when profiling is off
+    public ScheduleProfile getProfile() {
+        return profile;
+    }
+    
+    // Run one phase of a strategy, reporting it to JFR and the profile when either is listening.
+    // With no recording and profiling off this is a plain call.
+    void runPhase(String name, Runnable phase) {
+        PhaseEvent event = new PhaseEvent();
+        if (!event.isEnabled() && profile == null) {
+            phase.run();
+            return;
+        }
+        ScheduleProfile.Mark start = new ScheduleProfile.Mark(counters, metrics.getAssignments(), profile != null);
+        event.begin();
+        phase.run();
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = name;
+            event.employees = employees.size();
+            event.assignments = metrics.getAssignments() - start.assignments;
+            event.candidateLookups = counters.lookups - start.lookups;
+            event.bucketsScanned = counters.bucketsScanned - start.bucketsScanned;
+            event.preferredPicks = counters.preferredPicks - start.preferredPicks;
+            event.fallbackPicks = counters.fallbackPicks - start.fallbackPicks;
+            event.failedFills = counters.failedFills - start.failedFills;
+            event.commit();
+        }
+        if (profile != null) {
+            profile.record(name, start, counters, metrics.getAssignments());
+        }
+    }
+    
+    public SchedulingStrategy getStrategy() {
+        return strategy;
+    }
+    
+    public void setStrategy(SchedulingStrategy strategy) {
+        this.strategy = strategy;
+    }
+    
+    // Generate the schedule with the parallel engine on the common ForkJoin pool
+    public void generateScheduleInParallel() {
+        generateScheduleInParallel(ForkJoinPool.commonPool());
+    }
+    
+    // Parallel engine: weekly budgets are split across days, each day is solved on its own task,
+    // then the result is applied here and reconciled (see ParallelDayScheduler)
+    public void generateScheduleInParallel(ForkJoinPool pool) {
+        if (profile != null) {
+            profile.clear();
+        }
+        runPhase("total (parallel)", () -> {
+            solveInParallel(pool);
+            runPhase("resolve conflicts", this::resolveConflicts);
+            runPhase("publish", this::publish);
+        });
+    }
+    
+    private void solveInParallel(ForkJoinPool pool) {
+        resetAssignments();
+        candidates = null; // Built only if reconciliation is needed
+        
+        ParallelDayScheduler solver = new ParallelDayScheduler(employees, preferences, staffing, MAX_DAYS_PER_EMPLOYEE);
+        int[][][][] picks = new int[1][][][];
+        runPhase("parallel solve", () -> picks[0] = solver.solve(pool));
+        runPhase("apply picks", () -> {
+            for (DayOfWeek day : DayOfWeek.values()) {
+                for (Shift shift : Shift.values()) {
+                    for (int id : picks[0][day.ordinal()][shift.ordinal()]) {
+                        assignToSlot(solver.employee(id), day, shift);
+                    }
+                }
+            }
+        });
+        
+        // Reconcile: a day can come out short when budgets are tight (small rosters), and the day
+        // solve does not look at roles, so the sequential stages top it up from whatever weekly
+        // capacity is left and bring in any role holders still missing
+        if (capacity.total() > 0 || !rolesCovered()) {
+            runPhase("reconcile", () -> {
+                candidates = new CandidateIndex(employees, preferences, MAX_DAYS_PER_EMPLOYEE, counters);
+                fillRequiredRoles();
+                fillToMinimum();
+                fillToTarget();
+            });
+        }
+    }
+    
+    // Apply one roster or preference change to the current schedule, repairing only the slots
+    // and employees it touches. Returns false if it does not apply (duplicate or unknown employee).
+    public boolean applyChange(ScheduleChange change) {
+        if (!apply(change)) {
+            return false;
+        }
+        publish();
+        return true;
+    }
+    
+    // Apply a batch, publishing one snapshot at the end; returns the changes that did not apply, in order
+    public List<ScheduleChange> applyChanges(List<ScheduleChange> changes) {
+        List<ScheduleChange> rejected = new ArrayList<>();
+        for (ScheduleChange change : changes) {
+            if (!apply(change)) {
+                rejected.add(change);
+            }
+        }
+        publish();
+        return rejected;
+    }
+    
+    // Replay changes logged by ChangeJournal on top of the state they were made to. Each edit is
+    // applied as it comes, without applyChange's per-change repair: once all are in, the preferences
+    // they added are placed (where still held by someone on the roster), the fill stages run once
+    // and one snapshot is published. The staff can differ from what the live session had, which
+    // repaired after every change, but meets the same rules. Returns the changes that did not apply.
+    public List<ScheduleChange> replayChanges(List<ScheduleChange> changes) {
+        List<ScheduleChange> rejected = new ArrayList<>();
+        List<ScheduleChange> added = new ArrayList<>();
+        for (ScheduleChange change : changes) {
+            if (!edit(change, false)) {
+                rejected.add(change);
+            } else if (change.getType() == ScheduleChange.Type.EMPLOYEE_ADDED
+                    || change.getType() == ScheduleChange.Type.PREFERENCE_ADDED) {
+                added.add(change);
+            }
+        }
+        for (ScheduleChange change : added) {
+            Employee employee = employeeNamed(change.getEmployee().getName());
+            if (employee == null) {
+                continue; // Removed later in the journal
+            }
+            if (change.getType() == ScheduleChange.Type.PREFERENCE_ADDED) {
+                if (employee.prefersShift(change.getDay(), change.getShift())) {
+                    placePreferred(employee, change.getDay(), change.getShift());
+                }
+            } else if (employee == change.getEmployee()) {
+                placePreferences(employee);
+            }
+        }
+        fillRequiredRoles();
+        fillToMinimum();
+        fillToTarget();
+        publish();
+        return rejected;
+    }
+    
+    private boolean apply(ScheduleChange change) {
+        if (!edit(change, true)) {
+            return false;
+        }
+        
+        // Any slot left short (by a removal, or short all along) gets topped up from the index
+        fillRequiredRoles();
+        fillToMinimum();
+        fillToTarget();
+        return true;
+    }
+    
+    // The roster or preference edit of a change, placing added preferences right away if place is set
+    private boolean edit(ScheduleChange change, boolean place) {
+        if (candidates == null) {
+            candidates = new CandidateIndex(employees, preferences, MAX_DAYS_PER_EMPLOYEE, counters);
+        }
+        
+        Employee employee = change.getEmployee();
+        if (change.getType() == ScheduleChange.Type.EMPLOYEE_ADDED) {
+            employee.clearAssignments();
+            if (!addEmployee(employee)) {
+                return false;
+            }
+            if (place) {
+                placePreferences(employee);
+            }
+        } else {
+            // Work on the roster's own instance, whatever object the caller passed in
+            employee = employeeNamed(employee.getName());
+            if (employee == null) {
+                return false;
+            }
+            switch (change.getType()) {
+                case EMPLOYEE_REMOVED:
+                    removeEmployee(employee);
+                    break;
+                case PREFERENCE_ADDED:
+                    employee.addPreference(change.getDay(), change.getShift());
+                    if (place) {
+                        placePreferred(employee, change.getDay(), change.getShift());
+                    }
+                    break;
+                case PREFERENCE_REMOVED:
+                    // Existing assignments stay valid, only the index needs to follow
+                    employee.removePreference(change.getDay(), change.getShift());
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown change: " + change);
+            }
+        }
+        return true;
+    }
+    
+    private void placePreferences(Employee employee) {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                if (employee.prefersShift(day, shift)) {
+                    placePreferred(employee, day, shift);
+                }
+            }
+        }
+    }
+    
+    // The employee who joined last takes the leaver's roster position, so nobody else is renumbered
+    // and the removal publishes like any other change: two positions and the slots of the two of
+    // them, whatever the size of the roster
+    private void removeEmployee(Employee employee) {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            Shift shift = employee.getAssignedShift(day);
+            if (shift != null && schedule.get(day).get(shift).remove(employee)) {
+                metrics.slotChanged(day, shift, employee.prefersShift(day, shift), -1);
+                capacity.staffChanged(day, shift, -1);
+                roles.staffChanged(day, shift, roleMask(employee), -1);
+                slotChanged(day, shift);
+            }
+        }
+        metrics.employeeRemoved(employee.getDaysWorked());
+        employee.clearAssignments();
+        candidates.remove(employee);
+        preferences.unregister(employee);
+        employee.removeRoleListener(roleListener);
+        int position = positionsByName.remove(nameKey(employee.getName()));
+        Employee last = employees.remove(employees.size() - 1);
+        if (last != employee) {
+            employees.set(position, last);
+            positionsByName.put(nameKey(last.getName()), position);
+            for (DayOfWeek day : DayOfWeek.values()) {
+                Shift shift = last.getAssignedShift(day);
+                if (shift != null) {
+                    slotChanged(day, shift); // Its id in the slot changes
+                }
+            }
+        }
+        if (!fullPublish) {
+            changedEmployees.remove(employee);
+            replacedPositions.add(position);
+            replacedPositions.add(employees.size());
+        }
+        cacheKey = null;
+        weekKey = null;
+    }
+    
+    // Try to give an employee a shift they prefer: take a free place on it, replace someone on it
+    // who does not prefer it, or swap with such a person if the employee works another shift that day
+    // (never taking the only holder of a required role off a shift, unless the swap brings another).
+    // If the shift is full of people who prefer it, the conflict is resolved and recorded (see spillOver).
+    private void placePreferred(Employee employee, DayOfWeek day, Shift shift) {
+        List<Employee> staff = schedule.get(day).get(shift);
+        Shift current = employee.getAssignedShift(day);
+        if (current == shift) {
+            return;
+        }
+        
+        if (current == null) {
+            if (!employee.canWorkMoreDays()) {
+                return;
+            }
+            if (capacity.hasRoom(day, shift)) {
+                assignToSlot(employee, day, shift);
+                return;
+            }
+            Employee displaced = findNonPreferring(staff, day, shift, employee, null);
+            if (displaced != null) {
+                unassignFromSlot(displaced, day, shift);
+                assignToSlot(employee, day, shift);
+            } else {
+                spillOver(employee, day, shift);
+            }
+        } else if (!employee.prefersShift(day, current)) {
+            Employee partner = findNonPreferring(staff, day, shift, employee, current);
+            if (partner != null) {
+                unassignFromSlot(partner, day, shift);
+                unassignFromSlot(employee, day, current);
+                assignToSlot(employee, day, shift);
+                assignToSlot(partner, day, current);
+            } else {
+                // Already working another shift that day, which is where a spill-over would put them
+                conflicts.add(employee, day, shift, ConflictRecord.Resolution.SAME_DAY, day, current);
+            }
+        }
+    }
+    
+    // After a generation: every preference the week leaves unmet on a full shift goes through the
+    // same spill-over as applyChange, and is recorded. Someone already working another shift that
+    // day counts as placed there; someone at the weekly limit cannot be placed at all. One pass over
+    // the roster, testing each employee's preference mask for the day against the full shifts, so
+    // thousands of people preferring one slot cost a mask test and a record each.
+    void resolveConflicts() {
+        Shift[] shifts = Shift.values();
+        for (Employee employee : employees) {
+            for (DayOfWeek day : DayOfWeek.values()) {
+                int missed = employee.getStore().preferenceMask(employee.getRow(), day) & ~capacity.freeShifts(day);
+                Shift current = missed == 0 ? null : employee.getAssignedShift(day);
+                if (current != null) {
+                    missed &= ~(1 << current.ordinal());
+                }
+                for (; missed != 0; missed &= missed - 1) {
+                    Shift shift = shifts[Integer.numberOfTrailingZeros(missed)];
+                    if (current != null) {
+                        conflicts.add(employee, day, shift, ConflictRecord.Resolution.SAME_DAY, day, current);
+                    } else if (employee.canWorkMoreDays()) {
+                        spillOver(employee, day, shift);
+                        current = employee.getAssignedShift(day); // Its other preferences that day follow it
+                    } else {
+                        conflicts.add(employee, day, shift, ConflictRecord.Resolution.UNRESOLVED, null, null);
+                    }
+                }
+            }
+        }
+    }
+    
+    // The preferred shift is full, meaning staffed to its target: the most the schedulers place on
+    // a shift (a shift between its minimum and target still has room). Take any shift with room the
+    // same day, else roll over to the next day (same shift if it has room), else give up. Each step
+    // is a capacity mask lookup. The week does not wrap, so a Sunday conflict can only be resolved on Sunday.
+    private void spillOver(Employee employee, DayOfWeek day, Shift shift) {
+        Shift sameDay = capacity.freeShift(day);
+        if (sameDay != null) {
+            assignToSlot(employee, day, sameDay);
+            conflicts.add(employee, day, shift, ConflictRecord.Resolution.SAME_DAY, day, sameDay);
+            return;
+        }
+        
+        int next = day.ordinal() + 1;
+        if (next < DayOfWeek.values().length && capacity.total() > 0) {
+            DayOfWeek nextDay = DayOfWeek.values()[next];
+            Shift nextShift = capacity.hasRoom(nextDay, shift) ? shift : capacity.freeShift(nextDay);
+            if (nextShift != null && !employee.isAssigned(nextDay)) {
+                assignToSlot(employee, nextDay, nextShift);
+                conflicts.add(employee, day, shift, ConflictRecord.Resolution.NEXT_DAY, nextDay, nextShift);
+                return;
+            }
+        }
+        conflicts.add(employee, day, shift, ConflictRecord.Resolution.UNRESOLVED, null, null);
+    }
+    
+    // Preferences that met a full shift: those the last generation left unmet, then those of each
+    // applyChange since, in order. Only the latest CONFLICT_LOG_CAPACITY are kept; older ones drop
+    // out as new ones come in, so the list stays bounded however long the schedule keeps running.
+    public List<ConflictRecord> getConflicts() {
+        return Collections.unmodifiableList(conflicts);
+    }
+    
+    // Conflicts recorded since the last generation (or clearConflicts), including those no longer
+    // in getConflicts(); the difference between two readings is how many the changes in between recorded
+    public long getConflictsRecorded() {
+        return conflicts.recorded();
+    }
+    
+    public void clearConflicts() {
+        conflicts.clear();
+    }
+    
+    // Someone on the slot who does not prefer it and can make way for joining, who leaves
+    // joiningFrom that day for them if not null, without either slot losing a required role
+    private Employee findNonPreferring(List<Employee> staff, DayOfWeek day, Shift shift, Employee joining, Shift joiningFrom) {
+        for (Employee member : staff) {
+            if (!member.prefersShift(day, shift) && keepsRoles(member, joining, day, shift)
+                && (joiningFrom == null || keepsRoles(joining, member, day, joiningFrom))) {
+                return member;
+            }
+        }
+        return null;
+    }
+    
+    // Someone on the slot who can make way for joining without the slot losing a required role,
+    // preferring those who do not prefer the shift; null if nobody can
+    private Employee findDisplaceable(List<Employee> staff, DayOfWeek day, Shift shift, Employee joining) {
+        Employee fallback = null;
+        for (Employee member : staff) {
+            if (keepsRoles(member, joining, day, shift)) {
+                if (!member.prefersShift(day, shift)) {
+                    return member;
+                }
+                if (fallback == null) {
+                    fallback = member;
+                }
+            }
+        }
+        return fallback;
+    }
+    
+    // Whether replacing leaving by joining on a slot keeps every role it requires covered
+    private boolean keepsRoles(Employee leaving, Employee joining, DayOfWeek day, Shift shift) {
+        int alone = roles.heldAlone(day, shift, roleMask(leaving), staffing.requiredRoles(day, shift));
+        return (alone & ~roleMask(joining)) == 0;
+    }
+    
+    static int roleMask(Employee employee) {
+        return employee.getStore().roleMask(employee.getRow());
+    }
+    
+    // Whether every slot has a holder of each role it requires
+    boolean rolesCovered() {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                if ((staffing.requiredRoles(day, shift) & ~roles.covered(day, shift)) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    void unassignFromSlot(Employee employee, DayOfWeek day, Shift shift) {
+        weekKey = null;
+        staffChanged(employee, day, shift);
+        if (schedule.get(day).get(shift).remove(employee)) {
+            metrics.slotChanged(day, shift, employee.prefersShift(day, shift), -1);
+            capacity.staffChanged(day, shift, -1);
+            roles.staffChanged(day, shift, roleMask(employee), -1);
+        }
+        int daysBefore = employee.getDaysWorked();
+        employee.unassignShift(day);
+        metrics.daysWorkedChanged(daysBefore, employee.getDaysWorked());
+        candidates.refresh(employee);
+    }
+    
+    // Clear all previous assignments
+    // (this and the fill stages are package-private so the benchmarks can time them one by one)
+    void clearSchedule() {
+        resetAssignments();
+        candidates = new CandidateIndex(employees, preferences, MAX_DAYS_PER_EMPLOYEE, counters);
+    }
+    
+    private void resetAssignments() {
+        for (Employee employee : employees) {
+            employee.clearAssignments();
+        }
+        
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                schedule.get(day).get(shift).clear();
+            }
+        }
+        metrics.reset();
+        capacity.reset();
+        roles.reset();
+        conflicts.clear();
+        weekKey = null;
+        fullPublish = true;
+        changedEmployees.clear();
+        replacedPositions.clear();
+    }
+    
+    // Stage 0: give each slot a holder of every role it requires, scarcest role first: the role with
+    // the fewest free holders that day is served before the others, so slots needing a common role
+    // do not use up the people a rare one depends on. A slot with no room takes the holder in place
+    // of someone whose roles it can spare. Does nothing when no slot requires a role.
+    void fillRequiredRoles() {
+        fillRequiredRoles(-1);
+    }
+    
+    // Same, for the slots in a mask of bits day * 3 + shift only
+    private void fillRequiredRoles(int slots) {
+        if (!staffing.requiresRoles()) {
+            return;
+        }
+        PriorityQueue<RoleDemand> queue = new PriorityQueue<>((demand1, demand2) -> demand1.scarcity != demand2.scarcity
+            ? Integer.compare(demand1.scarcity, demand2.scarcity) : Integer.compare(demand1.order, demand2.order));
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                if ((slots & 1 << (day.ordinal() * Shift.values().length + shift.ordinal())) == 0) {
+                    continue;
+                }
+                for (int unmet = staffing.requiredRoles(day, shift) & ~roles.covered(day, shift); unmet != 0; unmet &= unmet - 1) {
+                    Role role = Role.values()[Integer.numberOfTrailingZeros(unmet)];
+                    queue.add(new RoleDemand(day, shift, role, candidates.freeHolders(day, role)));
+                }
+            }
+        }
+        
+        while (!queue.isEmpty()) {
+            RoleDemand demand = queue.poll();
+            if ((roles.covered(demand.day, demand.shift) & demand.role.bit()) != 0) {
+                continue; // Brought in meanwhile by a holder of several roles
+            }
+            int scarcity = candidates.freeHolders(demand.day, demand.role);
+            if (scarcity != demand.scarcity) {
+                // Placements since it was queued changed how scarce the role is: queue it again
+                demand.scarcity = scarcity;
+                queue.add(demand);
+                continue;
+            }
+            List<Employee> staff = schedule.get(demand.day).get(demand.shift);
+            SlotFillEvent event = beginSlotFill(demand.day, demand.shift, staffing.target(demand.day, demand.shift), staff.size());
+            Employee holder = candidates.findBest(demand.day, demand.shift, demand.role.bit(), random);
+            boolean hasRoom = capacity.hasRoom(demand.day, demand.shift);
+            Employee displaced = holder == null || hasRoom ? null : findDisplaceable(staff, demand.day, demand.shift, holder);
+            if (holder == null || (!hasRoom && displaced == null)) {
+                counters.failedFills++;
+            } else {
+                if (displaced != null) {
+                    unassignFromSlot(displaced, demand.day, demand.shift);
+                }
+                assignToSlot(holder, demand.day, demand.shift);
+            }
+            endSlotFill(event, staff.size());
+        }
+    }
+    
+    // A role a slot still lacks, waiting in fillRequiredRoles' queue
+    private static class RoleDemand {
+        final DayOfWeek day;
+        final Shift shift;
+        final Role role;
+        final int order; // Slot, then role: the tie-breaker
+        int scarcity; // Free holders of the role that day when queued
+        
+        RoleDemand(DayOfWeek day, Shift shift, Role role, int scarcity) {
+            this.day = day;
+            this.shift = shift;
+            this.role = role;
+            this.order = (day.ordinal() * Shift.values().length + shift.ordinal()) * Role.values().length + role.ordinal();
+            this.scarcity = scarcity;
+        }
+    }
+    
+    // Stage 1: bring every slot up to its minimum staff, prioritizing preference fulfillment
+    void fillToMinimum() {
+        fill(false);
+    }
+    
+    // Stage 2: top slots that have their minimum up to their target while employees have days left
+    void fillToTarget() {
+        fill(true);
+    }
+    
+    // Place one person at a time on the slot at the head of a queue ordered by remaining deficit
+    // against the stage's goal (the minimum, or the target once a slot has its minimum). A slot that
+    // gets someone goes back in with its deficit one smaller, so with any number of staff per slot
+    // each placement costs one candidate lookup and a queue update over the 21 slots.
+    // Filling to the minimum takes the smallest deficit first: when staff run short, finishing the
+    // slots nearest their minimum leaves the most slots staffed, instead of one person on each.
+    // Topping up takes the largest first, so extra people go where the most are missing.
+    // Equal deficits go least popular first for the minimum, to ensure coverage, and most popular
+    // first when topping up. With the default levels this places exactly as the sort-and-sweep did.
+    private void fill(boolean toTarget) {
+        PriorityQueue<ShiftSlot> queue = new PriorityQueue<>(DayOfWeek.values().length * Shift.values().length,
+            (slot1, slot2) -> {
+                if (slot1.deficit != slot2.deficit) {
+                    return toTarget ? Integer.compare(slot2.deficit, slot1.deficit)
+                        : Integer.compare(slot1.deficit, slot2.deficit);
+                }
+                if (slot1.popularity != slot2.popularity) {
+                    return toTarget ? Integer.compare(slot2.popularity, slot1.popularity)
+                        : Integer.compare(slot1.popularity, slot2.popularity);
+                }
+                return slot1.tieBreak != slot2.tieBreak ? Integer.compare(slot1.tieBreak, slot2.tieBreak)
+                    : Integer.compare(slot1.index, slot2.index);
+            });
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                int staff = schedule.get(day).get(shift).size();
+                int minimum = staffing.minimum(day, shift);
+                int goal = toTarget ? staffing.target(day, shift) : minimum;
+                if (staff < goal && (!toTarget || staff >= minimum)) {
+                    queue.add(new ShiftSlot(day, shift, goal, goal - staff));
+                }
+            }
+        }
+        
+        while (!queue.isEmpty()) {
+            ShiftSlot slot = queue.poll();
+            List<Employee> staff = schedule.get(slot.day).get(slot.shift);
+            SlotFillEvent event = beginSlotFill(slot.day, slot.shift, slot.goal, staff.size());
+            // The index only holds employees free that day with days to spare, so any pick can be placed
+            Employee employee = findBestEmployeeForShift(slot.day, slot.shift);
+            if (employee == null) {
+                counters.failedFills++; // Nobody left for this slot; it drops out of the queue
+            } else {
+                assignToSlot(employee, slot.day, slot.shift);
+                if (--slot.deficit > 0) {
+                    queue.add(slot);
+                }
+            }
+            endSlotFill(event, staff.size());
+        }
+    }
+    
+    // Slot fill events are only allocated while a recording has them enabled
+    private SlotFillEvent beginSlotFill(DayOfWeek day, Shift shift, int target, int staffBefore) {
+        if (!SLOT_FILL_EVENTS.isEnabled()) {
+            return null;
+        }
+        SlotFillEvent event = new SlotFillEvent();
+        event.day = day.name();
+        event.shift = shift.name();
+        event.target = target;
+        event.staffBefore = staffBefore;
+        event.begin();
+        return event;
+    }
+    
+    private static void endSlotFill(SlotFillEvent event, int staffAfter) {
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.staffAfter = staffAfter;
+                event.commit();
+            }
+        }
+    }
+    
+    // Find the best available employee for a specific shift
+    private Employee findBestEmployeeForShift(DayOfWeek day, Shift shift) {
+        // Preferred employees first, then fewest days worked (see CandidateIndex)
+        return candidates.findBest(day, shift, random);
+    }
+    
+    // Count how many employees have preference for a specific shift
+    private int countEmployeesWithPreference(DayOfWeek day, Shift shift) {
+        return preferences.count(day, shift);
+    }
+    
+    // A slot waiting in a fill stage's queue
+    private class ShiftSlot {
+        final DayOfWeek day;
+        final Shift shift;
+        final int index; // day * 3 + shift, the last tie-breaker
+        final int goal; // Headcount this stage fills the slot to
+        final int popularity; // Employees who prefer the slot
+        final int tieBreak; // Shuffles slots of equal deficit and popularity in randomized runs
+        int deficit; // People still wanted to reach the goal
+        
+        ShiftSlot(DayOfWeek day, Shift shift, int goal, int deficit) {
+            this.day = day;
+            this.shift = shift;
+            this.index = day.ordinal() * Shift.values().length + shift.ordinal();
+            this.goal = goal;
+            this.popularity = countEmployeesWithPreference(day, shift);
+            this.tieBreak = random == null ? 0 : random.nextInt();
+            this.deficit = deficit;
+        }
+    }
+    
+    // Record an assignment that has already been checked against the constraints
+    void assignToSlot(Employee employee, DayOfWeek day, Shift shift) {
+        schedule.get(day).get(shift).add(employee);
+        weekKey = null;
+        staffChanged(employee, day, shift);
+        int daysBefore = employee.getDaysWorked();
+        employee.assignShift(day, shift);
+        metrics.slotChanged(day, shift, employee.prefersShift(day, shift), 1);
+        capacity.staffChanged(day, shift, 1);
+        roles.staffChanged(day, shift, roleMask(employee), 1);
+        metrics.daysWorkedChanged(daysBefore, employee.getDaysWorked());
+        if (candidates != null) {
+            candidates.recordAssignment(employee, day);
+        }
+    }
+    
+    // Note what the next publish has to copy; after a reset it copies everything anyway
+    private void staffChanged(Employee employee, DayOfWeek day, Shift shift) {
+        if (!fullPublish) {
+            changedEmployees.add(employee);
+        }
+        slotChanged(day, shift);
+    }
+    
+    private void slotChanged(DayOfWeek day, Shift shift) {
+        if (!fullPublish) {
+            changedSlots |= 1 << (day.ordinal() * Shift.values().length + shift.ordinal());
+        }
+    }
+    
+    // Display the schedule in a readable format
+    public void printSchedule() {
+        try {
+            new ScheduleRenderer(System.out).render(this);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    public void printScheduleSummary() {
+        try {
+            new ScheduleRenderer(System.out).renderSummary(this);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    // Randomize tie-breaks (slot order and candidate choice) of the greedy phases; null restores the default
+    void setTieBreaker(SplittableRandom random) {
+        this.random = random;
+    }
+    
+    // Private copy of a roster in one new store: names, roles and preferences, no assignments or listeners.
+    // Copy i is on row i, which maps it back to the original.
+    static List<Employee> copyRoster(Collection<Employee> roster) {
+        EmployeeStore store = new EmployeeStore(roster.size());
+        List<Employee> copies = new ArrayList<>(roster.size());
+        for (Employee employee : roster) {
+            Employee copy = store.add(employee.getName());
+            for (Role role : employee.getRoles()) {
+                copy.addRole(role);
+            }
+            for (DayOfWeek day : DayOfWeek.values()) {
+                int mask = employee.getStore().preferenceMask(employee.getRow(), day);
+                for (Shift shift : Shift.values()) {
+                    if ((mask & (1 << shift.ordinal())) != 0) {
+                        copy.addPreference(day, shift);
+                    }
+                }
+            }
+            copies.add(copy);
+        }
+        return copies;
+    }
+    
+    // Live staff list of one slot, for strategies in this package
+    List<Employee> staffOf(DayOfWeek day, Shift shift) {
+        return schedule.get(day).get(shift);
+    }
+    
+    // Number of assignments that match the employee's preference, to compare strategies on the same input
+    public int countPreferenceMatches() {
+        int matches = 0;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                for (Employee employee : schedule.get(day).get(shift)) {
+                    if (employee.prefersShift(day, shift)) {
+                        matches++;
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+    
+    // Getters
+    // Coverage, preference hits and workload, kept current as assignments change
+    public ScheduleMetrics getMetrics() {
+        return metrics;
+    }
+    
+    public List<Employee> getEmployees() {
+        return new ArrayList<>(employees);
+    }
+    
+    // Read-only copy of the slots; use getSnapshot() to read from another thread
+    public Map<DayOfWeek, Map<Shift, List<Employee>>> getSchedule() {
+        Map<DayOfWeek, Map<Shift, List<Employee>>> copy = new HashMap<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            Map<Shift, List<Employee>> shifts = new HashMap<>();
+            for (Shift shift : Shift.values()) {
+                shifts.put(shift, List.copyOf(schedule.get(day).get(shift)));
+            }
+            copy.put(day, Collections.unmodifiableMap(shifts));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+    
+    // The schedule as of the last generation or applied change. Safe to call from any thread while
+    // this Schedule is being regenerated; the returned snapshot never changes.
+    public ScheduleSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
+    // Swap a snapshot of the current state in for readers. After a generation it is a full copy;
+    // otherwise it is the last one with only the employees, positions and slots changed since
+    // copied, so publishing an edit (a removal included) costs the size of the edit.
+    void publish() {
+        snapshot = fullPublish ? ScheduleSnapshot.of(++version, employees, schedule)
+            : snapshot.derive(++version, employees, schedule, changedEmployees, replacedPositions, changedSlots);
+        fullPublish = false;
+        changedEmployees.clear();
+        replacedPositions.clear();
+        changedSlots = 0;
+    }
+} 
\ No newline at end of file
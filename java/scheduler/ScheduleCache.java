@@ -0,0 +1,235 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Shift;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+// Solved weeks keyed by what went into them, so solving the same roster again (a regenerate with
+// nothing changed, a restart, a repeated what-if) is a lookup instead of a solve.
+//
+// A key is the SHA-256 of the roster in order (names, preference and role bits), the staffing
+// levels and required roles of every slot, the day limit and the strategy's cache key (see SchedulingStrategy.getCacheKey), so equal keys mean equal input
+// and a deterministic strategy gives the same week. An entry holds only the staff of each slot, by
+// roster position, and is replayed onto the asking Schedule's own employees.
+//
+// Memory is bounded by an estimate of the bytes held; the least recently used entries go first.
+// One cache can be shared by any number of Schedules and threads.
+public final class ScheduleCache {
+    private static final int DAYS = DayOfWeek.values().length;
+    private static final int SHIFTS = Shift.values().length;
+    private static final int KEY_FORMAT = 3; // Bump when the digest input changes
+    private static final int ENTRY_OVERHEAD_BYTES = 160; // Key, arrays and map node headers
+
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Result> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public ScheduleCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maxBytes = maxBytes;
+    }
+
+    // Content address of one solve
+    public static final class Key {
+        private final byte[] digest;
+        private final int hash;
+
+        private Key(byte[] digest) {
+            this.digest = digest;
+            this.hash = ByteBuffer.wrap(digest).getInt();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && Arrays.equals(digest, key.digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return HexFormat.of().formatHex(digest);
+        }
+    }
+
+    // Staff of every slot by roster position, laid out like ScheduleSnapshot's slots
+    static final class Result {
+        private final int[] slotStart;   // [day * SHIFTS + shift] -> first index in slotMembers
+        private final int[] slotMembers;
+
+        private Result(int[] slotStart, int[] slotMembers) {
+            this.slotStart = slotStart;
+            this.slotMembers = slotMembers;
+        }
+
+        int staffCount(int slot) {
+            return slotStart[slot + 1] - slotStart[slot];
+        }
+
+        int staffId(int slot, int k) {
+            return slotMembers[slotStart[slot] + k];
+        }
+
+        private long bytes() {
+            return ENTRY_OVERHEAD_BYTES + 4L * (slotStart.length + slotMembers.length);
+        }
+    }
+
+    // Counters since the cache was created
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int entries;
+        private final long bytes;
+
+        Stats(long hits, long misses, long evictions, int entries, long bytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.entries = entries;
+            this.bytes = bytes;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public int getEntries() {
+            return entries;
+        }
+
+        // Estimated bytes held by the entries
+        public long getBytes() {
+            return bytes;
+        }
+
+        public double getHitRate() {
+            return hits + misses == 0 ? 0 : hits / (double) (hits + misses);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d hits, %d misses (%.1f%% hit rate), %d evictions, %d entries in %d bytes",
+                hits, misses, 100 * getHitRate(), evictions, entries, bytes);
+        }
+    }
+
+    // Key for solving this roster, in this order, with a strategy of the given cache key
+    static Key key(List<Employee> roster, StaffingLevels staffing, String strategyKey) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // Every JDK has it
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 13);
+        buffer.putInt(KEY_FORMAT).putInt(Schedule.MAX_DAYS_PER_EMPLOYEE).putInt(DAYS).putInt(SHIFTS);
+        for (int slot = 0; slot < DAYS * SHIFTS; slot++) {
+            buffer.putInt(staffing.minimum(slot)).putInt(staffing.target(slot)).putInt(staffing.requiredRoles(slot));
+        }
+        byte[] strategy = strategyKey.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(strategy.length).put(strategy).putInt(roster.size());
+        for (Employee employee : roster) {
+            byte[] name = employee.getName().getBytes(StandardCharsets.UTF_8);
+            if (buffer.remaining() < 9 + name.length) {
+                digest.update(buffer.flip());
+                buffer.clear();
+            }
+            buffer.putInt(name.length);
+            if (buffer.remaining() < 5 + name.length) {
+                // Longer than the buffer: hash it straight after its length
+                digest.update(buffer.flip());
+                buffer.clear();
+                digest.update(name);
+            } else {
+                buffer.put(name);
+            }
+            int preferenceBits = 0;
+            for (DayOfWeek day : DayOfWeek.values()) {
+                preferenceBits |= employee.getStore().preferenceMask(employee.getRow(), day) << (day.ordinal() * SHIFTS);
+            }
+            buffer.putInt(preferenceBits).put((byte) employee.getStore().roleMask(employee.getRow()));
+        }
+        digest.update(buffer.flip());
+        return new Key(digest.digest());
+    }
+
+    // The stored week for a key, or null; counts a hit or a miss
+    synchronized Result get(Key key) {
+        Result result = entries.get(key);
+        if (result == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return result;
+    }
+
+    // Remember the week a snapshot holds under a key, evicting the least recently used entries
+    // to stay within the size limit. A week larger than the whole cache is not kept.
+    void put(Key key, ScheduleSnapshot snapshot) {
+        int[] slotStart = new int[DAYS * SHIFTS + 1];
+        int[] slotMembers = new int[snapshot.totalAssignments()];
+        int next = 0;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                slotStart[day.ordinal() * SHIFTS + shift.ordinal()] = next;
+                for (int k = 0; k < snapshot.staffCount(day, shift); k++) {
+                    slotMembers[next++] = snapshot.staffId(day, shift, k);
+                }
+            }
+        }
+        slotStart[DAYS * SHIFTS] = next;
+        Result result = new Result(slotStart, slotMembers);
+        if (result.bytes() > maxBytes) {
+            return;
+        }
+
+        synchronized (this) {
+            Result previous = entries.put(key, result);
+            bytes += result.bytes() - (previous == null ? 0 : previous.bytes());
+            Iterator<Result> eldest = entries.values().iterator();
+            while (bytes > maxBytes) {
+                bytes -= eldest.next().bytes();
+                eldest.remove();
+                evictions++;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(hits, misses, evictions, entries.size(), bytes);
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+}
@@ -0,0 +1,66 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Shift;
+
+// One roster or preference edit. Schedule.applyChange repairs the current schedule around it
+// instead of re-solving the whole week. Role edits are not changes of their own (Schedule repairs
+// around them as a RoleListener), so they are neither batched nor journaled.
+public class ScheduleChange {
+    public enum Type {
+        EMPLOYEE_ADDED,
+        EMPLOYEE_REMOVED,
+        PREFERENCE_ADDED,
+        PREFERENCE_REMOVED
+    }
+    
+    private final Type type;
+    private final Employee employee;
+    private final DayOfWeek day;  // null for roster changes
+    private final Shift shift;    // null for roster changes
+    
+    private ScheduleChange(Type type, Employee employee, DayOfWeek day, Shift shift) {
+        this.type = type;
+        this.employee = employee;
+        this.day = day;
+        this.shift = shift;
+    }
+    
+    public static ScheduleChange employeeAdded(Employee employee) {
+        return new ScheduleChange(Type.EMPLOYEE_ADDED, employee, null, null);
+    }
+    
+    public static ScheduleChange employeeRemoved(Employee employee) {
+        return new ScheduleChange(Type.EMPLOYEE_REMOVED, employee, null, null);
+    }
+    
+    public static ScheduleChange preferenceAdded(Employee employee, DayOfWeek day, Shift shift) {
+        return new ScheduleChange(Type.PREFERENCE_ADDED, employee, day, shift);
+    }
+    
+    public static ScheduleChange preferenceRemoved(Employee employee, DayOfWeek day, Shift shift) {
+        return new ScheduleChange(Type.PREFERENCE_REMOVED, employee, day, shift);
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public Employee getEmployee() {
+        return employee;
+    }
+    
+    public DayOfWeek getDay() {
+        return day;
+    }
+    
+    public Shift getShift() {
+        return shift;
+    }
+    
+    @Override
+    public String toString() {
+        return type + " " + employee + (day != null ? " " + day + " " + shift : "");
+    }
+}
@@ -0,0 +1,419 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Shift;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+// Solved schedule written out for other tools: CSV, JSON or iCalendar, each optionally gzipped.
+//
+//   CSV:       day,shift,employee,preferred - one row per assignment, slot by slot
+//   JSON:      {"version", "employees", "assignments", "slots": [{"day", "shift", "staff": [{"name", "preferred"}]}]}
+//   iCalendar: one VEVENT per worked day, employee by employee (or for one employee), with the
+//              clock times in SHIFT_START and SHIFT_HOURS on the week starting at weekStart
+//
+// Everything streams from a ScheduleSnapshot through one fixed buffer, encoded straight to UTF-8
+// bytes, so memory stays the same however many assignments there are. Like ScheduleFiles, a file
+// is written next to its destination and moved into place once complete. ScheduleServer streams
+// the same formats straight into HTTP responses.
+public final class ScheduleExports {
+    static final int[] SHIFT_START = {6, 12, 18}; // Hour of the day each shift starts, by Shift ordinal
+    static final int SHIFT_HOURS = 6;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String PRODUCT_ID = "-//Employee Scheduler//Schedule Export//EN";
+    private static final DateTimeFormatter LOCAL_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter UTC_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    public enum Format {
+        CSV(".csv"), JSON(".json"), ICALENDAR(".ics");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        // Format named by a file's extension, ignoring a trailing ".gz"; null if not recognised
+        public static Format of(Path file) {
+            String name = stripGzip(file.getFileName().toString().toLowerCase(Locale.ROOT));
+            for (Format format : values()) {
+                if (name.endsWith(format.extension)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+    }
+
+    private ScheduleExports() {
+    }
+
+    // Pick the format from the file name ("week.csv", "week.json.gz", "week.ics", ...);
+    // weekStart dates the calendar and is ignored by the other formats
+    public static void write(Path file, ScheduleSnapshot snapshot, LocalDate weekStart) throws IOException {
+        Format format = Format.of(file);
+        if (format == null) {
+            throw new IOException(file + ": expected a .csv, .json or .ics file name, optionally ending in .gz");
+        }
+        boolean gzip = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(GZIP_SUFFIX);
+        switch (format) {
+            case CSV -> writeCsv(file, snapshot, gzip);
+            case JSON -> writeJson(file, snapshot, gzip);
+            case ICALENDAR -> writeCalendar(file, snapshot, weekStart, gzip);
+        }
+    }
+
+    public static void writeCsv(Path file, ScheduleSnapshot snapshot, boolean gzip) throws IOException {
+        try (Sink out = Sink.open(file, gzip, false)) {
+            csv(out, snapshot);
+            out.commit();
+        }
+    }
+
+    public static void writeJson(Path file, ScheduleSnapshot snapshot, boolean gzip) throws IOException {
+        try (Sink out = Sink.open(file, gzip, false)) {
+            json(out, snapshot);
+            out.commit();
+        }
+    }
+
+    // Every employee's shifts in one calendar, employee by employee
+    public static void writeCalendar(Path file, ScheduleSnapshot snapshot, LocalDate weekStart, boolean gzip)
+            throws IOException {
+        try (Sink out = Sink.open(file, gzip, true)) {
+            calendar(out, snapshot, 0, snapshot.size(), weekStart);
+            out.commit();
+        }
+    }
+
+    // One employee's shifts (id as in the snapshot)
+    public static void writeCalendar(Path file, ScheduleSnapshot snapshot, int id, LocalDate weekStart, boolean gzip)
+            throws IOException {
+        Objects.checkIndex(id, snapshot.size());
+        try (Sink out = Sink.open(file, gzip, true)) {
+            calendar(out, snapshot, id, id + 1, weekStart);
+            out.commit();
+        }
+    }
+
+    // Stream to an open stream (an HTTP response body, say), closing it at the end
+    static void write(OutputStream stream, Format format, ScheduleSnapshot snapshot, LocalDate weekStart)
+            throws IOException {
+        try (Sink out = Sink.to(stream, format == Format.ICALENDAR)) {
+            switch (format) {
+                case CSV -> csv(out, snapshot);
+                case JSON -> json(out, snapshot);
+                case ICALENDAR -> calendar(out, snapshot, 0, snapshot.size(), weekStart);
+            }
+            out.commit();
+        }
+    }
+
+    static void writeCalendar(OutputStream stream, ScheduleSnapshot snapshot, int id, LocalDate weekStart)
+            throws IOException {
+        Objects.checkIndex(id, snapshot.size());
+        try (Sink out = Sink.to(stream, true)) {
+            calendar(out, snapshot, id, id + 1, weekStart);
+            out.commit();
+        }
+    }
+
+    private static void csv(Sink out, ScheduleSnapshot snapshot) throws IOException {
+        out.ascii("day,shift,employee,preferred\n");
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                for (int k = 0; k < snapshot.staffCount(day, shift); k++) {
+                    int id = snapshot.staffId(day, shift, k);
+                    out.ascii(day.getDisplayName()).ascii(",").ascii(shift.getDisplayName()).ascii(",");
+                    out.csv(snapshot.name(id));
+                    out.ascii(snapshot.prefers(id, day, shift) ? ",true\n" : ",false\n");
+                }
+            }
+        }
+    }
+
+    private static void json(Sink out, ScheduleSnapshot snapshot) throws IOException {
+        out.ascii("{\"version\": ").number(snapshot.getVersion())
+            .ascii(", \"employees\": ").number(snapshot.size())
+            .ascii(", \"assignments\": ").number(snapshot.totalAssignments())
+            .ascii(", \"slots\": [");
+        boolean firstSlot = true;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                out.ascii(firstSlot ? "\n  " : ",\n  ");
+                firstSlot = false;
+                out.ascii("{\"day\": \"").ascii(day.getDisplayName())
+                    .ascii("\", \"shift\": \"").ascii(shift.getDisplayName()).ascii("\", \"staff\": [");
+                for (int k = 0; k < snapshot.staffCount(day, shift); k++) {
+                    int id = snapshot.staffId(day, shift, k);
+                    out.ascii(k == 0 ? "{\"name\": \"" : ", {\"name\": \"");
+                    out.json(snapshot.name(id));
+                    out.ascii(snapshot.prefers(id, day, shift) ? "\", \"preferred\": true}" : "\", \"preferred\": false}");
+                }
+                out.ascii("]}");
+            }
+        }
+        out.ascii("\n]}\n");
+    }
+
+    private static void calendar(Sink out, ScheduleSnapshot snapshot, int from, int to, LocalDate weekStart)
+            throws IOException {
+        String stamp = UTC_TIME.format(LocalDateTime.now(ZoneOffset.UTC));
+        String week = weekStart.format(DateTimeFormatter.BASIC_ISO_DATE);
+        out.ascii("BEGIN:VCALENDAR\r\nVERSION:2.0\r\nPRODID:").ascii(PRODUCT_ID).ascii("\r\nCALSCALE:GREGORIAN\r\n");
+        for (int id = from; id < to; id++) {
+            for (DayOfWeek day : DayOfWeek.values()) {
+                Shift shift = snapshot.assignedShift(id, day);
+                if (shift == null) {
+                    continue;
+                }
+                LocalDateTime start = weekStart.plusDays(day.ordinal()).atTime(SHIFT_START[shift.ordinal()], 0);
+                // UID stays the same for the same person, week and day, so re-imports update events
+                out.ascii("BEGIN:VEVENT\r\nUID:").ascii(week).ascii("-").number(day.ordinal()).ascii("-");
+                out.calendar(snapshot.name(id));
+                out.ascii("@employee-scheduler\r\nDTSTAMP:").ascii(stamp)
+                    .ascii("\r\nDTSTART:").ascii(LOCAL_TIME.format(start))
+                    .ascii("\r\nDTEND:").ascii(LOCAL_TIME.format(start.plusHours(SHIFT_HOURS)))
+                    .ascii("\r\nSUMMARY:").ascii(shift.getDisplayName()).ascii(" shift: ");
+                out.calendar(snapshot.name(id));
+                out.ascii(snapshot.prefers(id, day, shift) ? "\r\nDESCRIPTION:Preferred shift\r\n" : "\r\n");
+                out.ascii("END:VEVENT\r\n");
+            }
+        }
+        out.ascii("END:VCALENDAR\r\n");
+    }
+
+    // A JSON string literal, quotes included, for small hand-built documents (see ScheduleServer)
+    static String jsonString(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static String stripGzip(String name) {
+        return name.endsWith(GZIP_SUFFIX) ? name.substring(0, name.length() - GZIP_SUFFIX.length()) : name;
+    }
+
+    // UTF-8 output through one heap buffer, drained to the file channel (or a stream) when full.
+    // Text is escaped and encoded char by char, so no per-name byte arrays or strings are made.
+    private static final class Sink implements AutoCloseable {
+        private static final int MAX_LINE_OCTETS = 75; // iCalendar folds longer content lines
+
+        private final Path file;         // Destination, or null when writing to a caller's stream
+        private final Path temporary;
+        private final FileChannel channel;
+        private final OutputStream stream; // gzip over channel, or the caller's stream; null writes channel directly
+        private final boolean fold;      // Fold lines at MAX_LINE_OCTETS, as iCalendar requires
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private int lineOctets;          // Octets since the last line break
+        private boolean committed;
+
+        private Sink(Path file, Path temporary, FileChannel channel, OutputStream stream, boolean fold) {
+            this.file = file;
+            this.temporary = temporary;
+            this.channel = channel;
+            this.stream = stream;
+            this.fold = fold;
+        }
+
+        static Sink open(Path file, boolean gzip, boolean fold) throws IOException {
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            return new Sink(file, temporary, channel,
+                gzip ? new GZIPOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE) : null, fold);
+        }
+
+        static Sink to(OutputStream stream, boolean fold) {
+            return new Sink(null, null, null, Objects.requireNonNull(stream), fold);
+        }
+
+        // Text known to be ASCII with nothing to escape
+        Sink ascii(String text) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                put(text.charAt(i));
+            }
+            return this;
+        }
+
+        Sink number(long value) throws IOException {
+            return ascii(Long.toString(value));
+        }
+
+        // A CSV field: quoted, with quotes doubled, only when it holds a comma, quote or line break
+        void csv(String text) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < text.length() && !quote; i++) {
+                char c = text.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (quote) {
+                put('"');
+            }
+            for (int i = 0; i < text.length(); ) {
+                if (text.charAt(i) == '"') {
+                    put('"');
+                }
+                i += codePoint(text, i);
+            }
+            if (quote) {
+                put('"');
+            }
+        }
+
+        // Inside a JSON string: quotes, backslashes and control characters escaped
+        void json(String text) throws IOException {
+            for (int i = 0; i < text.length(); ) {
+                char c = text.charAt(i);
+                if (c < 0x20) {
+                    ascii(String.format("\\u%04x", (int) c));
+                    i++;
+                    continue;
+                }
+                if (c == '"' || c == '\\') {
+                    put('\\');
+                }
+                i += codePoint(text, i);
+            }
+        }
+
+        // An iCalendar TEXT value: backslash, comma, semicolon and line breaks escaped
+        void calendar(String text) throws IOException {
+            for (int i = 0; i < text.length(); ) {
+                char c = text.charAt(i);
+                if (c == '\n') {
+                    ascii("\\n");
+                    i++;
+                    continue;
+                }
+                if (c == '\r') {
+                    i++;
+                    continue;
+                }
+                if (c == '\\' || c == ',' || c == ';') {
+                    put('\\');
+                }
+                i += codePoint(text, i);
+            }
+        }
+
+        private void put(char c) throws IOException {
+            if (c == '\n') {
+                lineOctets = -1;
+            } else if (fold && c != '\r') {
+                foldBefore(1);
+            }
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) c);
+            lineOctets++;
+        }
+
+        // Encode the code point at index i; returns the chars it took (2 for a surrogate pair)
+        private int codePoint(String text, int i) throws IOException {
+            int c = text.codePointAt(i);
+            if (c < 0x80) {
+                put((char) c);
+                return 1;
+            }
+            int octets = c < 0x800 ? 2 : c < 0x10000 ? 3 : 4;
+            if (fold) {
+                foldBefore(octets);
+            }
+            if (buffer.remaining() < octets) {
+                drain();
+            }
+            if (octets == 2) {
+                buffer.put((byte) (0xC0 | c >> 6));
+            } else if (octets == 3) {
+                buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F));
+            } else {
+                buffer.put((byte) (0xF0 | c >> 18)).put((byte) (0x80 | c >> 12 & 0x3F)).put((byte) (0x80 | c >> 6 & 0x3F));
+            }
+            buffer.put((byte) (0x80 | c & 0x3F));
+            lineOctets += octets;
+            return Character.charCount(c);
+        }
+
+        // Start a continuation line if the next octets would overflow this one (never inside a character)
+        private void foldBefore(int octets) throws IOException {
+            if (lineOctets + octets > MAX_LINE_OCTETS) {
+                ascii("\r\n ");
+            }
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            if (stream != null) {
+                stream.write(buffer.array(), 0, buffer.limit());
+            } else {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            buffer.clear();
+        }
+
+        // Finish the output and move a file into place
+        void commit() throws IOException {
+            drain();
+            if (stream != null) {
+                stream.close(); // Writes any gzip trailer and closes what is underneath
+            } else {
+                channel.close();
+            }
+            if (file != null) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            committed = true;
+        }
+
+        // Without a commit (an exception on the way), drop the partial file
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            try {
+                if (stream != null) {
+                    stream.close(); // Frees any deflater
+                }
+            } finally {
+                if (file != null) {
+                    channel.close();
+                    Files.deleteIfExists(temporary);
+                }
+            }
+        }
+    }
+}
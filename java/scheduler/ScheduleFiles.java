@@ -0,0 +1,215 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.EmployeeStore;
+import dtos.Shift;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+// Saved state of a solved schedule (roster, preferences and staff per slot), so a restart can pick
+// up where it left off without re-solving. Roles are not saved (see ChangeJournal).
+//
+// Binary ("ESS1"), big-endian:
+//   int magic, int format version, int employee count, int assignment count,
+//   per employee: unsigned short UTF-8 name length, the name bytes, int preference bits
+//                 (day * 3 + shift), as in the RosterFiles binary roster,
+//   per slot, day by day and shift by shift: int staff count, then an int roster position per member,
+//   long CRC32C of every byte before it.
+//
+// Files are written through a temporary file and moved into place, so a crash mid-write leaves the
+// previous state intact. Loading maps the file and checks the CRC before parsing anything.
+public final class ScheduleFiles {
+    static final int MAGIC = 0x45535331; // "ESS1"
+    static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_BYTES = 16;
+    private static final int CHECKSUM_BYTES = 8;
+
+    private ScheduleFiles() {
+    }
+
+    // Save a published snapshot; safe to call while the schedule it came from is being regenerated.
+    // Returns the file's checksum, which identifies this save (see checksum and ChangeJournal).
+    public static long write(Path file, ScheduleSnapshot snapshot) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32C checksum = new CRC32C();
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.BIG_ENDIAN);
+            buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(snapshot.size()).putInt(snapshot.totalAssignments());
+            for (int id = 0; id < snapshot.size(); id++) {
+                byte[] name = snapshot.name(id).getBytes(StandardCharsets.UTF_8);
+                if (name.length > 0xFFFF) {
+                    throw new IOException("Employee name too long for the binary format: " + snapshot.name(id));
+                }
+                int record = 2 + name.length + 4;
+                if (buffer.remaining() < record) {
+                    drain(channel, buffer, checksum);
+                }
+                // A record longer than the whole buffer (a name near the limit) goes out on its own
+                ByteBuffer target = record <= buffer.capacity() ? buffer : ByteBuffer.allocate(record);
+                target.putShort((short) name.length).put(name).putInt(snapshot.preferenceBits(id));
+                if (target != buffer) {
+                    drain(channel, target, checksum);
+                }
+            }
+            for (DayOfWeek day : DayOfWeek.values()) {
+                for (Shift shift : Shift.values()) {
+                    int staff = snapshot.staffCount(day, shift);
+                    if (buffer.remaining() < 4) {
+                        drain(channel, buffer, checksum);
+                    }
+                    buffer.putInt(staff);
+                    for (int k = 0; k < staff; k++) {
+                        if (buffer.remaining() < 4) {
+                            drain(channel, buffer, checksum);
+                        }
+                        buffer.putInt(snapshot.staffId(day, shift, k));
+                    }
+                }
+            }
+            drain(channel, buffer, checksum);
+            buffer.putLong(checksum.getValue());
+            drain(channel, buffer, null);
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return checksum.getValue();
+    }
+
+    // Checksum stored in a schedule file, without verifying or loading it
+    public static long checksum(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + CHECKSUM_BYTES) {
+                throw new IOException(file + ": truncated schedule file");
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(CHECKSUM_BYTES).order(ByteOrder.BIG_ENDIAN);
+            while (trailer.hasRemaining()) {
+                if (channel.read(trailer, size - CHECKSUM_BYTES + trailer.position()) < 0) {
+                    throw new IOException(file + ": truncated schedule file");
+                }
+            }
+            return trailer.getLong(0);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer, CRC32C checksum) throws IOException {
+        buffer.flip();
+        if (checksum != null) {
+            checksum.update(buffer.duplicate());
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Load a saved state into a new Schedule using the default strategy
+    public static Schedule read(Path file) throws IOException {
+        return read(file, new GreedySchedulingStrategy());
+    }
+
+    // Load a saved state into a new Schedule; the restored week is published as its first snapshot
+    public static Schedule read(Path file, SchedulingStrategy strategy) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + ": schedule files larger than 2 GB are not supported");
+            }
+            if (size < HEADER_BYTES + CHECKSUM_BYTES) {
+                throw new IOException(file + ": truncated schedule file");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException(file + ": not a schedule file");
+            }
+            if (buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException(file + ": unsupported schedule file version " + buffer.getInt(4));
+            }
+            int body = (int) size - CHECKSUM_BYTES;
+            CRC32C checksum = new CRC32C();
+            checksum.update(buffer.slice(0, body));
+            if (checksum.getValue() != buffer.getLong(body)) {
+                throw new IOException(file + ": checksum mismatch, the file is corrupt");
+            }
+            return parse(file, buffer.slice(0, body).order(ByteOrder.BIG_ENDIAN), strategy);
+        }
+    }
+
+    private static Schedule parse(Path file, ByteBuffer buffer, SchedulingStrategy strategy) throws IOException {
+        buffer.position(8);
+        try {
+            int count = buffer.getInt();
+            int assignments = buffer.getInt();
+            if (count < 0 || assignments < 0) {
+                throw new IOException(file + ": negative employee or assignment count");
+            }
+            EmployeeStore store = new EmployeeStore(count);
+            List<Employee> employees = new ArrayList<>(count);
+            byte[] nameBytes = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int length = buffer.getShort() & 0xFFFF;
+                if (nameBytes.length < length) {
+                    nameBytes = new byte[length];
+                }
+                buffer.get(nameBytes, 0, length);
+                Employee employee = store.add(new String(nameBytes, 0, length, StandardCharsets.UTF_8));
+                for (int bits = buffer.getInt(); bits != 0; bits &= bits - 1) {
+                    int bit = Integer.numberOfTrailingZeros(bits);
+                    int shifts = Shift.values().length;
+                    if (bit >= DayOfWeek.values().length * shifts) {
+                        throw new IOException(file + ": bad preference bits for " + employee.getName());
+                    }
+                    employee.addPreference(DayOfWeek.values()[bit / shifts], Shift.values()[bit % shifts]);
+                }
+                employees.add(employee);
+            }
+
+            Schedule schedule = new Schedule(strategy);
+            if (!schedule.addEmployees(employees).isEmpty()) {
+                throw new IOException(file + ": duplicate employee names");
+            }
+            int restored = 0;
+            for (DayOfWeek day : DayOfWeek.values()) {
+                for (Shift shift : Shift.values()) {
+                    int staff = buffer.getInt();
+                    for (int k = 0; k < staff; k++) {
+                        int id = buffer.getInt();
+                        if (id < 0 || id >= count) {
+                            throw new IOException(file + ": roster position " + id + " out of range on " + day + " " + shift);
+                        }
+                        Employee employee = employees.get(id);
+                        if (employee.isAssigned(day) || !employee.canWorkMoreDays()) {
+                            throw new IOException(file + ": " + employee.getName() + " assigned twice on " + day
+                                + " or over the weekly limit");
+                        }
+                        schedule.assignToSlot(employee, day, shift);
+                        restored++;
+                    }
+                }
+            }
+            if (restored != assignments || buffer.hasRemaining()) {
+                throw new IOException(file + ": assignment count does not match the slots");
+            }
+            schedule.publish();
+            return schedule;
+        } catch (BufferUnderflowException e) {
+            throw new IOException(file + ": truncated schedule file", e);
+        }
+    }
+}
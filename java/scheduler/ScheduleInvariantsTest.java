@@ -0,0 +1,403 @@
+package scheduler;
+
+import dtos.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+// Invariant checks for the incremental paths: repair after every change keeps the week within
+// the constraints the summary reports on, the live metrics match a recount, saved states and
+// journals survive a round trip and are rejected when corrupted, a cache hit gives the same
+// week as a fresh solve, and the min-cost flow keeps the constraints with at least the greedy's
+// preference hits. Throws an AssertionError on the first failure.
+public class ScheduleInvariantsTest {
+    private static final long SEED = 20240617L;
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("=== SCHEDULE INVARIANTS ===\n");
+
+        repairKeepsConstraints();
+        metricsMatchRecount();
+        stateRoundTrip();
+        journalRoundTrip();
+        cacheHitMatchesFreshSolve();
+        flowMatchesAtLeastGreedy();
+
+        System.out.println("\nAll invariants hold.");
+    }
+
+    // Random roster and preference changes (and role edits) on a solved week, checked after each one
+    private static void repairKeepsConstraints() {
+        Random random = new Random(SEED);
+        Schedule schedule = new Schedule();
+        StaffingLevels staffing = StaffingLevels.DEFAULT;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            staffing = staffing.requireRoles(day, Shift.MORNING, Role.KEYHOLDER);
+        }
+        schedule.setStaffing(staffing);
+        for (int i = 0; i < 40; i++) {
+            schedule.addEmployee(randomEmployee("employee" + i, random));
+        }
+        schedule.generateSchedule();
+        checkSchedule(schedule, "after generation");
+
+        int applied = 0;
+        for (int step = 0; step < 500; step++) {
+            List<Employee> roster = schedule.getEmployees();
+            Employee employee = roster.get(random.nextInt(roster.size()));
+            DayOfWeek day = DayOfWeek.values()[random.nextInt(DayOfWeek.values().length)];
+            Shift shift = Shift.values()[random.nextInt(Shift.values().length)];
+            ScheduleChange change;
+            switch (random.nextInt(6)) {
+                case 0:
+                    change = ScheduleChange.employeeAdded(randomEmployee("hire" + step, random));
+                    break;
+                case 1:
+                    change = roster.size() > 30 ? ScheduleChange.employeeRemoved(employee) : null;
+                    break;
+                case 2:
+                    change = ScheduleChange.preferenceRemoved(employee, day, shift);
+                    break;
+                case 3:
+                    // Roles are not changes of their own; the schedule repairs around them as they happen
+                    if (employee.hasRole(Role.KEYHOLDER)) {
+                        employee.removeRole(Role.KEYHOLDER);
+                    } else {
+                        employee.addRole(Role.KEYHOLDER);
+                    }
+                    change = null;
+                    break;
+                default:
+                    change = ScheduleChange.preferenceAdded(employee, day, shift);
+                    break;
+            }
+            if (change != null && schedule.applyChange(change)) {
+                applied++;
+            }
+            checkSchedule(schedule, "after step " + step + " (" + change + ")");
+        }
+        System.out.println("✓ Repair kept the constraints through " + applied + " changes and the role edits between them");
+    }
+
+    // Metrics after each way of producing a week
+    private static void metricsMatchRecount() {
+        Random random = new Random(SEED + 1);
+        Schedule schedule = new Schedule();
+        for (int i = 0; i < 60; i++) {
+            schedule.addEmployee(randomEmployee("employee" + i, random));
+        }
+        schedule.generateSchedule();
+        checkMetrics(schedule, "greedy");
+        schedule.generateScheduleInParallel();
+        checkMetrics(schedule, "parallel");
+        schedule.setStrategy(new MinCostFlowSchedulingStrategy());
+        schedule.generateSchedule();
+        checkMetrics(schedule, "min-cost flow");
+        schedule.setStaffing(StaffingLevels.uniform(3, 4));
+        checkMetrics(schedule, "new staffing levels");
+        System.out.println("✓ Metrics match a recount after greedy, parallel and min-cost flow solves");
+    }
+
+    // ESS1: a saved week reads back unchanged; a flipped byte is caught by the CRC
+    private static void stateRoundTrip() throws IOException {
+        Random random = new Random(SEED + 2);
+        Schedule schedule = new Schedule();
+        for (int i = 0; i < 50; i++) {
+            schedule.addEmployee(randomEmployee("employee" + i, random));
+        }
+        schedule.addEmployee(randomEmployee("Zoë Ångström", random));
+        schedule.generateSchedule();
+
+        Path file = Files.createTempFile("schedule", ".state");
+        try {
+            long checksum = ScheduleFiles.write(file, schedule.getSnapshot());
+            check(checksum == ScheduleFiles.checksum(file), "write returns the checksum read back from the file");
+            Schedule restored = ScheduleFiles.read(file);
+            check(restored.getEmployees().size() == schedule.getEmployees().size(), "restored roster size");
+            for (int i = 0; i < schedule.getEmployees().size(); i++) {
+                Employee original = schedule.getEmployees().get(i);
+                Employee copy = restored.getEmployees().get(i);
+                check(original.getName().equals(copy.getName()), "restored name " + original.getName());
+                for (DayOfWeek day : DayOfWeek.values()) {
+                    check(original.getPreferences(day).equals(copy.getPreferences(day)),
+                        "restored preferences of " + original.getName() + " on " + day);
+                }
+            }
+            check(staffNames(restored).equals(staffNames(schedule)), "restored staff per slot");
+            checkMetrics(restored, "restored state");
+
+            corrupt(file, Files.size(file) / 2);
+            expectRejected(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        System.out.println("✓ Saved states round-trip and a corrupted one is rejected");
+    }
+
+    // ESJ1: appended changes replay in order; replay stops at a record that fails its CRC
+    private static void journalRoundTrip() throws IOException {
+        Random random = new Random(SEED + 3);
+        List<ScheduleChange> changes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Employee employee = randomEmployee("employee" + i, random);
+            DayOfWeek day = DayOfWeek.values()[random.nextInt(DayOfWeek.values().length)];
+            Shift shift = Shift.values()[random.nextInt(Shift.values().length)];
+            changes.add(ScheduleChange.employeeAdded(employee));
+            changes.add(ScheduleChange.preferenceAdded(employee, day, shift));
+            changes.add(ScheduleChange.preferenceRemoved(employee, day, shift));
+            if (i % 5 == 0) {
+                changes.add(ScheduleChange.employeeRemoved(employee));
+            }
+        }
+
+        Path file = Files.createTempFile("schedule", ".journal");
+        try {
+            long baseline = 0x1234_5678L;
+            try (ChangeJournal journal = ChangeJournal.open(file, baseline)) {
+                for (ScheduleChange change : changes) {
+                    journal.append(change);
+                }
+                journal.sync();
+            }
+            List<ScheduleChange> replayed = new ArrayList<>();
+            check(ChangeJournal.replay(file, baseline, replayed::add) == changes.size(), "replayed change count");
+            for (int i = 0; i < changes.size(); i++) {
+                check(sameChange(changes.get(i), replayed.get(i)), "replayed change " + i + ": " + replayed.get(i));
+            }
+            check(ChangeJournal.replay(file, baseline + 1, change -> { }) == 0, "journal of another baseline ignored");
+
+            // The last record's payload ends the file; damage it and only the ones before it remain
+            corrupt(file, Files.size(file) - 1);
+            check(ChangeJournal.replay(file, baseline, change -> { }) == changes.size() - 1, "corrupted record dropped");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        System.out.println("✓ Journals round-trip and a corrupted record is not replayed");
+    }
+
+    // A week restored from the cache equals the week a cold schedule solves for the same roster
+    private static void cacheHitMatchesFreshSolve() {
+        Random random = new Random(SEED + 4);
+        List<Employee> roster = new ArrayList<>();
+        for (int i = 0; i < 45; i++) {
+            roster.add(randomEmployee("employee" + i, random));
+        }
+
+        ScheduleCache cache = new ScheduleCache(1L << 20);
+        Schedule cached = new Schedule();
+        cached.setCache(cache);
+        cached.addEmployees(copies(roster));
+        cached.generateSchedule();
+
+        // An edit and its undo bring back the same roster, so the next generation is a hit
+        Employee first = cached.getEmployees().get(0);
+        DayOfWeek day = DayOfWeek.MONDAY;
+        Shift shift = first.prefersShift(day, Shift.MORNING) ? Shift.EVENING : Shift.MORNING;
+        cached.applyChange(ScheduleChange.preferenceAdded(first, day, shift));
+        cached.applyChange(ScheduleChange.preferenceRemoved(first, day, shift));
+        cached.generateSchedule();
+        check(cache.getStats().getHits() == 1, "second generation is a cache hit");
+
+        // Another schedule with an equal roster shares the entry
+        Schedule sharing = new Schedule();
+        sharing.setCache(cache);
+        sharing.addEmployees(copies(roster));
+        sharing.generateSchedule();
+        check(cache.getStats().getHits() == 2, "equal roster on another schedule is a cache hit");
+
+        Schedule fresh = new Schedule();
+        fresh.addEmployees(copies(roster));
+        fresh.generateSchedule();
+        check(staffNames(cached).equals(staffNames(fresh)), "restored week equals a fresh solve");
+        check(staffNames(sharing).equals(staffNames(fresh)), "shared entry equals a fresh solve");
+        check(cached.countPreferenceMatches() == fresh.countPreferenceMatches(), "same preference matches");
+        checkMetrics(cached, "cache hit");
+        System.out.println("✓ Cache hits give the same week as a fresh solve");
+    }
+
+    // The flow maximizes preference hits among weeks staffed to target, which the greedy also reaches
+    // on these rosters, so it can tie the greedy but never trail it
+    private static void flowMatchesAtLeastGreedy() {
+        Random random = new Random(SEED + 5);
+        int rosters = 0;
+        for (int size : new int[] {15, 25, 40, 80, 200}) {
+            for (int trial = 0; trial < 4; trial++) {
+                List<Employee> roster = new ArrayList<>();
+                for (int i = 0; i < size; i++) {
+                    roster.add(randomEmployee("employee" + i, random));
+                }
+                Schedule greedy = new Schedule();
+                greedy.addEmployees(copies(roster));
+                greedy.generateSchedule();
+
+                Schedule flow = new Schedule(new MinCostFlowSchedulingStrategy());
+                flow.addEmployees(copies(roster));
+                flow.generateSchedule();
+                String when = "after a min-cost flow solve of " + size + " employees (trial " + trial + ")";
+                checkSchedule(flow, when);
+                check(flow.countPreferenceMatches() >= greedy.countPreferenceMatches(), "flow matches "
+                    + flow.countPreferenceMatches() + " below greedy " + greedy.countPreferenceMatches() + " " + when);
+                rosters++;
+            }
+        }
+        System.out.println("✓ The min-cost flow kept the constraints and matched the greedy or better on "
+            + rosters + " rosters");
+    }
+
+    // The summary's constraint check, plus the bookkeeping it relies on
+    private static void checkSchedule(Schedule schedule, String when) {
+        StringBuilder summary = new StringBuilder();
+        try {
+            new ScheduleRenderer(summary).renderSummary(schedule);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        check(summary.indexOf("No constraint violations found.") >= 0, "constraint violations " + when + ":\n" + summary);
+
+        for (Employee employee : schedule.getEmployees()) {
+            int days = 0;
+            for (DayOfWeek day : DayOfWeek.values()) {
+                Shift shift = employee.getAssignedShift(day);
+                if (shift != null) {
+                    days++;
+                    check(schedule.staffOf(day, shift).contains(employee),
+                        employee.getName() + " assigned " + day + " " + shift + " but not on it " + when);
+                }
+            }
+            check(days == employee.getDaysWorked(), "days worked of " + employee.getName() + " " + when);
+        }
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                for (Employee employee : schedule.staffOf(day, shift)) {
+                    check(employee.getAssignedShift(day) == shift, employee.getName() + " on " + day + " " + shift
+                        + " without the assignment " + when);
+                }
+            }
+        }
+        checkMetrics(schedule, when);
+    }
+
+    private static void checkMetrics(Schedule schedule, String when) {
+        ScheduleMetrics metrics = schedule.getMetrics();
+        StaffingLevels staffing = schedule.getStaffing();
+        int covered = 0;
+        int fullyStaffed = 0;
+        long assignments = 0;
+        long hits = 0;
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                List<Employee> staff = schedule.staffOf(day, shift);
+                covered += staff.isEmpty() ? 0 : 1;
+                fullyStaffed += staff.size() >= staffing.minimum(day, shift) ? 1 : 0;
+                assignments += staff.size();
+                for (Employee employee : staff) {
+                    hits += employee.prefersShift(day, shift) ? 1 : 0;
+                }
+            }
+        }
+        int minDays = Integer.MAX_VALUE;
+        int maxDays = 0;
+        long sumOfDays = 0;
+        for (Employee employee : schedule.getEmployees()) {
+            minDays = Math.min(minDays, employee.getDaysWorked());
+            maxDays = Math.max(maxDays, employee.getDaysWorked());
+            sumOfDays += employee.getDaysWorked();
+        }
+        int employees = schedule.getEmployees().size();
+        check(metrics.getEmployeeCount() == employees, "employee count " + when);
+        check(metrics.getCoveredSlots() == covered, "covered slots " + when);
+        check(metrics.getFullyStaffedSlots() == fullyStaffed, "fully staffed slots " + when);
+        check(metrics.getUnderstaffedSlots() == metrics.getTotalSlots() - fullyStaffed, "understaffed slots " + when);
+        check(metrics.getAssignments() == assignments, "assignments " + when);
+        check(metrics.getPreferenceHits() == hits, "preference hits " + when);
+        check(hits == schedule.countPreferenceMatches(), "countPreferenceMatches " + when);
+        check(employees == 0 || metrics.getMinDaysWorked() == minDays, "min days worked " + when);
+        check(metrics.getMaxDaysWorked() == maxDays, "max days worked " + when);
+        check(employees == 0 || Math.abs(metrics.getMeanDaysWorked() - (double) sumOfDays / employees) < 1e-9,
+            "mean days worked " + when);
+    }
+
+    private static Employee randomEmployee(String name, Random random) {
+        Employee employee = new Employee(name);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (random.nextInt(3) > 0) {
+                employee.addPreference(day, Shift.values()[random.nextInt(Shift.values().length)]);
+            }
+        }
+        if (random.nextInt(3) == 0) {
+            employee.addRole(Role.KEYHOLDER);
+        }
+        return employee;
+    }
+
+    // Fresh employees with the same names, preferences and roles, in the same order
+    private static List<Employee> copies(List<Employee> roster) {
+        List<Employee> copies = new ArrayList<>();
+        for (Employee employee : roster) {
+            Employee copy = new Employee(employee.getName());
+            for (DayOfWeek day : DayOfWeek.values()) {
+                for (Shift shift : employee.getPreferences(day)) {
+                    copy.addPreference(day, shift);
+                }
+            }
+            for (Role role : Role.values()) {
+                if (employee.hasRole(role)) {
+                    copy.addRole(role);
+                }
+            }
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    private static List<List<String>> staffNames(Schedule schedule) {
+        List<List<String>> names = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                List<String> slot = new ArrayList<>();
+                for (Employee employee : schedule.staffOf(day, shift)) {
+                    slot.add(employee.getName());
+                }
+                names.add(slot);
+            }
+        }
+        return names;
+    }
+
+    private static boolean sameChange(ScheduleChange expected, ScheduleChange actual) {
+        return expected.getType() == actual.getType()
+            && expected.getEmployee().getName().equals(actual.getEmployee().getName())
+            && expected.getDay() == actual.getDay()
+            && expected.getShift() == actual.getShift();
+    }
+
+    // Flip every bit of one byte
+    private static void corrupt(Path file, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer one = ByteBuffer.allocate(1);
+            channel.read(one, position);
+            one.put(0, (byte) ~one.get(0)).rewind();
+            channel.write(one, position);
+        }
+    }
+
+    private static void expectRejected(Path file) {
+        try {
+            ScheduleFiles.read(file);
+        } catch (IOException e) {
+            return;
+        }
+        throw new AssertionError("corrupted state file was accepted: " + file);
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new AssertionError(what);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Shift;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Load test for ScheduleServer: many clients on virtual threads sending preference updates (with
+// a share of schedule and employee reads mixed in), reporting latency percentiles and throughput.
+//
+//   java scheduler.ScheduleLoadGenerator [--url http://host:port] [--employees <n>] [--clients <n>]
+//                                        [--requests <n>] [--read-percent <0-100>]
+//
+// Without --url it starts a server of its own on a free port, loads a generated roster into it
+// and solves once, so a single command measures the whole stack locally.
+public class ScheduleLoadGenerator {
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int employees = 2_000;
+        int clients = 64;
+        int requests = 50_000;
+        int readPercent = 10;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url" -> url = args[i + 1];
+                case "--employees" -> employees = Integer.parseInt(args[i + 1]);
+                case "--clients" -> clients = Integer.parseInt(args[i + 1]);
+                case "--requests" -> requests = Integer.parseInt(args[i + 1]);
+                case "--read-percent" -> readPercent = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        ScheduleServer server = null;
+        if (url == null) {
+            ScheduleServer.useNoDelay();
+            server = new ScheduleServer(new Schedule(), 0);
+            server.start();
+            url = "http://localhost:" + server.getPort();
+        }
+        try {
+            run(URI.create(url), employees, clients, requests, readPercent);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private static void run(URI base, int employees, int clients, int requests, int readPercent) throws Exception {
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(threads).build();
+
+            // Roster: "employee-<i>" with two random preferences each, then one solve to start from
+            StringBuilder roster = new StringBuilder("name,day,shift\n");
+            SplittableRandom random = new SplittableRandom(632L);
+            for (int i = 0; i < employees; i++) {
+                for (int k = 0; k < 2; k++) {
+                    roster.append("employee-").append(i).append(',')
+                        .append(DayOfWeek.values()[random.nextInt(DayOfWeek.values().length)].getDisplayName()).append(',')
+                        .append(Shift.values()[random.nextInt(Shift.values().length)].getDisplayName()).append('\n');
+                }
+            }
+            send(client, HttpRequest.newBuilder(base.resolve("/employees"))
+                .POST(HttpRequest.BodyPublishers.ofString(roster.toString())).build());
+            send(client, HttpRequest.newBuilder(base.resolve("/schedule/generate")).POST(HttpRequest.BodyPublishers.noBody()).build());
+            while (send(client, HttpRequest.newBuilder(base.resolve("/schedule/status")).build()).contains("\"generating\": true")) {
+                Thread.sleep(10);
+            }
+
+            // Each client sends its share of requests back to back and times every one
+            long[] latencies = new long[requests];
+            List<Future<Integer>> workers = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int c = 0; c < clients; c++) {
+                int first = (int) ((long) requests * c / clients);
+                int last = (int) ((long) requests * (c + 1) / clients);
+                SplittableRandom clientRandom = random.split();
+                workers.add(threads.submit(() -> {
+                    int failures = 0;
+                    for (int r = first; r < last; r++) {
+                        HttpRequest request = request(base, clientRandom, employees, readPercent);
+                        long sent = System.nanoTime();
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        latencies[r] = System.nanoTime() - sent;
+                        if (response.statusCode() != 200) {
+                            failures++;
+                        }
+                    }
+                    return failures;
+                }));
+            }
+            int failures = 0;
+            for (Future<Integer> worker : workers) {
+                failures += worker.get();
+            }
+            long elapsed = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            System.out.printf("%d requests from %d clients in %.2f s: %.0f requests/s, %d failed%n",
+                requests, clients, elapsed / 1e9, requests * 1e9 / elapsed, failures);
+            System.out.printf("latency p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                percentile(latencies, 50), percentile(latencies, 90), percentile(latencies, 99),
+                latencies[latencies.length - 1] / 1e6);
+            System.out.println("server: " + send(client, HttpRequest.newBuilder(base.resolve("/stats")).build()));
+        }
+    }
+
+    // A preference added or removed for a random employee, or (readPercent of the time) a read
+    private static HttpRequest request(URI base, SplittableRandom random, int employees, int readPercent) {
+        String name = "employee-" + random.nextInt(employees);
+        if (random.nextInt(100) < readPercent) {
+            return HttpRequest.newBuilder(base.resolve(random.nextBoolean() ? "/schedule" : "/employees/" + name)).build();
+        }
+        String row = name + ',' + DayOfWeek.values()[random.nextInt(DayOfWeek.values().length)].getDisplayName()
+            + ',' + Shift.values()[random.nextInt(Shift.values().length)].getDisplayName() + '\n';
+        return HttpRequest.newBuilder(base.resolve("/preferences"))
+            .method(random.nextBoolean() ? "POST" : "DELETE", HttpRequest.BodyPublishers.ofString(row)).build();
+    }
+
+    private static String send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IOException(request.method() + " " + request.uri() + ": " + response.statusCode() + " " + response.body());
+        }
+        return response.body();
+    }
+
+    private static double percentile(long[] sorted, int percent) {
+        return sorted[Math.min(sorted.length - 1, (int) ((long) sorted.length * percent / 100))] / 1e6;
+    }
+}
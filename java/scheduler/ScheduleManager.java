@@ -1,16 +1,88 @@
+package scheduler;
+
 import dtos.Employee;
 import dtos.Shift;
 import dtos.DayOfWeek;
 
+import javax.management.JMException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 
 public class ScheduleManager {
+    private static final long CACHE_BYTES = 16L << 20; // Solved weeks kept for "Regenerate schedule"
+    
     private Schedule schedule;
     private Scanner scanner;
+    private final Path stateFile; // Saved after every generation and restored on start; null keeps the session in memory
+    private ChangeJournal journal; // Roster and preference edits since the last save, next to the state file
+    private boolean restored;
     
     public ScheduleManager() {
+        this(false, null);
+    }
+    
+    // With report on, every generation is followed by a per-phase breakdown (see ScheduleProfile)
+    public ScheduleManager(boolean report, Path stateFile) {
+        this.stateFile = stateFile;
         this.schedule = new Schedule();
+        if (stateFile != null && Files.exists(stateFile)) {
+            try {
+                schedule = ScheduleFiles.read(stateFile);
+                restored = true;
+            } catch (IOException e) {
+                System.err.println("Could not restore " + stateFile + ", starting empty: " + e.getMessage());
+            }
+        }
+        if (stateFile != null) {
+            openJournal(stateFile.resolveSibling(stateFile.getFileName() + ".journal"));
+        }
+        schedule.setProfiling(report);
+        schedule.setCache(new ScheduleCache(CACHE_BYTES));
         this.scanner = new Scanner(System.in);
+        
+        // Let JConsole or a monitoring agent watch the session; the console works without it
+        try {
+            schedule.getMetrics().registerMBean("interactive");
+        } catch (JMException e) {
+            System.err.println("Schedule metrics not published over JMX: " + e.getMessage());
+        }
+    }
+    
+    // Replay the edits made after the last save, then keep journaling new ones
+    private void openJournal(Path journalFile) {
+        try {
+            long baseline = restored ? ScheduleFiles.checksum(stateFile) : ChangeJournal.NO_BASELINE;
+            List<ScheduleChange> changes = new ArrayList<>();
+            ChangeJournal.replay(journalFile, baseline, changes::add);
+            if (!changes.isEmpty()) {
+                schedule.replayChanges(changes);
+                System.out.println("Replayed " + changes.size() + " change(s) from " + journalFile);
+            }
+            journal = ChangeJournal.open(journalFile, baseline);
+        } catch (IOException e) {
+            System.err.println("Changes will not be journaled: " + e.getMessage());
+        }
+    }
+    
+    // Queue a change for the journal; returns its sequence number (0 without a journal)
+    private long record(ScheduleChange change) {
+        return journal == null ? 0 : journal.append(change);
+    }
+    
+    private void awaitJournal(long sequence) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.awaitDurable(sequence);
+        } catch (IOException e) {
+            System.out.println("Could not journal the change: " + e.getMessage());
+        }
     }
     
     public void run() {
@@ -24,14 +96,25 @@ public class ScheduleManager {
         System.out.println("- Automatic conflict resolution and staffing optimization\n");
         
         try {
-            // Step 1: Add employees
-            addEmployees();
-            
-            // Step 2: Collect employee preferences
-            collectPreferences();
-            
-            // Step 3: Generate and display schedule
-            generateSchedule();
+            if (restored) {
+                // Steps 1-3 were done in an earlier session
+                System.out.println("Restored " + schedule.getEmployees().size() + " employees and their schedule from "
+                    + stateFile + "\n");
+                schedule.printSchedule();
+            } else if (!schedule.getEmployees().isEmpty()) {
+                // The last session stopped before its first schedule; its roster came back from the journal
+                System.out.println("Recovered " + schedule.getEmployees().size() + " employees from the journal");
+                generateSchedule();
+            } else {
+                // Step 1: Add employees
+                addEmployees();
+                
+                // Step 2: Collect employee preferences
+                collectPreferences();
+                
+                // Step 3: Generate and display schedule
+                generateSchedule();
+            }
             
             // Step 4: Offer options for schedule management
             manageSchedule();
@@ -40,6 +123,17 @@ public class ScheduleManager {
             System.out.println("An error occurred: " + e.getMessage());
         } finally {
             scanner.close();
+            closeJournal();
+        }
+    }
+    
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.out.println("Could not flush the journal: " + e.getMessage());
+            }
         }
     }
     
@@ -61,16 +155,14 @@ public class ScheduleManager {
             }
             
             // Check for duplicate names
-            boolean exists = schedule.getEmployees().stream()
-                .anyMatch(emp -> emp.getName().equalsIgnoreCase(name));
-            
-            if (exists) {
+            if (schedule.hasEmployee(name)) {
                 System.out.println("Employee with that name already exists. Please enter a different name.");
                 continue;
             }
             
             Employee employee = new Employee(name);
             schedule.addEmployee(employee);
+            record(ScheduleChange.employeeAdded(employee));
             System.out.println("✓ Added employee: " + name);
         }
         
@@ -87,8 +179,13 @@ public class ScheduleManager {
     
     private void addSampleEmployees() {
         String[] sampleNames = {"Alice", "Bob", "Charlie", "Diana", "Eve", "Frank"};
+        List<Employee> samples = new ArrayList<>();
         for (String name : sampleNames) {
-            schedule.addEmployee(new Employee(name));
+            samples.add(new Employee(name));
+        }
+        schedule.addEmployees(samples);
+        for (Employee sample : samples) {
+            record(ScheduleChange.employeeAdded(sample));
         }
     }
     
@@ -111,6 +208,15 @@ public class ScheduleManager {
                 collectManualPreferences(employee);
             }
             
+            // One journal batch per employee, durable before moving on
+            long sequence = 0;
+            for (DayOfWeek day : DayOfWeek.values()) {
+                for (Shift shift : employee.getPreferences(day)) {
+                    sequence = record(ScheduleChange.preferenceAdded(employee, day, shift));
+                }
+            }
+            awaitJournal(sequence);
+            
             System.out.println();
         }
     }
@@ -200,16 +306,7 @@ public class ScheduleManager {
     }
     
     private Shift parseShift(String input) {
-        switch (input.toLowerCase()) {
-            case "morning": case "m": case "1":
-                return Shift.MORNING;
-            case "afternoon": case "a": case "2":
-                return Shift.AFTERNOON;
-            case "evening": case "e": case "3":
-                return Shift.EVENING;
-            default:
-                return null;
-        }
+        return Shift.fromInput(input);
     }
     
     private void generateSchedule() {
@@ -220,6 +317,32 @@ public class ScheduleManager {
         
         System.out.println("✓ Schedule generated successfully!\n");
         schedule.printSchedule();
+        printPhaseReport();
+        saveState();
+    }
+    
+    // Save the schedule; with a journal this also starts it afresh on top of the save
+    private void saveState() {
+        if (stateFile == null) {
+            return;
+        }
+        try {
+            if (journal != null) {
+                journal.compact(stateFile, schedule.getSnapshot());
+            } else {
+                ScheduleFiles.write(stateFile, schedule.getSnapshot());
+            }
+        } catch (IOException e) {
+            System.out.println("Could not save the schedule to " + stateFile + ": " + e.getMessage());
+        }
+    }
+    
+    private void printPhaseReport() {
+        if (schedule.getProfile() != null) {
+            System.out.println("\n=== PHASE REPORT ===");
+            System.out.print(schedule.getProfile());
+            System.out.println("Result cache: " + schedule.getCache().getStats());
+        }
     }
     
     private void manageSchedule() {
@@ -268,6 +391,8 @@ public class ScheduleManager {
         schedule.generateSchedule();
         System.out.println("✓ Schedule regenerated!");
         schedule.printSchedule();
+        printPhaseReport();
+        saveState();
     }
     
     private void addNewEmployee() {
@@ -280,40 +405,53 @@ public class ScheduleManager {
         }
         
         // Check for duplicates
-        boolean exists = schedule.getEmployees().stream()
-            .anyMatch(emp -> emp.getName().equalsIgnoreCase(name));
-        
-        if (exists) {
+        if (schedule.hasEmployee(name)) {
             System.out.println("Employee with that name already exists.");
             return;
         }
         
         Employee newEmployee = new Employee(name);
-        schedule.addEmployee(newEmployee);
         
-        System.out.println("✓ Added employee: " + name);
         System.out.println("Setting preferences for " + name + "...");
-        
         collectManualPreferences(newEmployee);
         
-        System.out.println("Employee added. Regenerating schedule...");
-        schedule.generateSchedule();
+        // Fit the new employee into the current schedule without reshuffling everyone else
+        long known = schedule.getConflictsRecorded();
+        ScheduleChange change = ScheduleChange.employeeAdded(newEmployee);
+        schedule.applyChange(change);
+        // Journaled rather than saved: one small fsync instead of rewriting the whole state
+        long sequence = record(change);
+        System.out.println("✓ Added employee: " + name);
+        List<ConflictRecord> conflicts = schedule.getConflicts();
+        int added = (int) Math.min(schedule.getConflictsRecorded() - known, conflicts.size());
+        for (ConflictRecord conflict : conflicts.subList(conflicts.size() - added, conflicts.size())) {
+            System.out.println("  " + conflict);
+        }
+        System.out.println("Schedule updated.");
         schedule.printSchedule();
+        if (journal != null) {
+            awaitJournal(sequence);
+        } else {
+            saveState();
+        }
     }
     
     private void viewEmployeeDetails() {
         System.out.println("\n=== EMPLOYEE DETAILS ===");
         
-        for (Employee emp : schedule.getEmployees()) {
-            System.out.println("\n" + emp.getName() + ":");
-            System.out.println("  Days worked: " + emp.getDaysWorked() + "/5");
+        // One consistent view of the last published schedule
+        ScheduleSnapshot snapshot = schedule.getSnapshot();
+        for (int id = 0; id < snapshot.size(); id++) {
+            System.out.println("\n" + snapshot.name(id) + ":");
+            System.out.println("  Days worked: " + snapshot.daysWorked(id) + "/5");
             
-            if (emp.getDaysWorked() > 0) {
+            if (snapshot.daysWorked(id) > 0) {
                 System.out.println("  Assigned shifts:");
                 for (DayOfWeek day : DayOfWeek.values()) {
-                    if (emp.isAssigned(day)) {
+                    Shift assigned = snapshot.assignedShift(id, day);
+                    if (assigned != null) {
                         System.out.println("    " + day.getDisplayName() + ": " + 
-                            emp.getAssignedShift(day).getDisplayName());
+                            assigned.getDisplayName());
                     }
                 }
             }
@@ -321,14 +459,17 @@ public class ScheduleManager {
             System.out.println("  Preferences:");
             boolean hasPreferences = false;
             for (DayOfWeek day : DayOfWeek.values()) {
-                List<Shift> prefs = emp.getPreferences(day);
-                if (!prefs.isEmpty()) {
-                    hasPreferences = true;
-                    System.out.print("    " + day.getDisplayName() + ": ");
-                    for (int i = 0; i < prefs.size(); i++) {
-                        if (i > 0) System.out.print(", ");
-                        System.out.print(prefs.get(i).getDisplayName());
+                boolean first = true;
+                for (Shift shift : Shift.values()) {
+                    if (!snapshot.prefers(id, day, shift)) {
+                        continue;
                     }
+                    System.out.print(first ? "    " + day.getDisplayName() + ": " : ", ");
+                    System.out.print(shift.getDisplayName());
+                    first = false;
+                }
+                if (!first) {
+                    hasPreferences = true;
                     System.out.println();
                 }
             }
@@ -341,15 +482,15 @@ public class ScheduleManager {
     private void exportScheduleSummary() {
         System.out.println("\n=== SCHEDULE EXPORT SUMMARY ===");
         System.out.println("Company: [Your Company Name]");
-        System.out.println("Week of: [Current Week]");
+        LocalDate weekStart = LocalDate.now().with(TemporalAdjusters.nextOrSame(java.time.DayOfWeek.MONDAY));
+        System.out.println("Week of: " + weekStart);
         System.out.println("Generated on: " + new Date());
         System.out.println();
         
         // Brief summary
-        int totalEmployees = schedule.getEmployees().size();
-        int totalAssignedDays = schedule.getEmployees().stream()
-            .mapToInt(Employee::getDaysWorked)
-            .sum();
+        ScheduleSnapshot snapshot = schedule.getSnapshot();
+        int totalEmployees = snapshot.size();
+        int totalAssignedDays = snapshot.totalAssignments();
         
         System.out.println("Summary Statistics:");
         System.out.println("- Total employees: " + totalEmployees);
@@ -362,17 +503,47 @@ public class ScheduleManager {
         for (DayOfWeek day : DayOfWeek.values()) {
             System.out.printf("%-10s: ", day.getDisplayName());
             for (Shift shift : Shift.values()) {
-                int count = schedule.getSchedule().get(day).get(shift).size();
+                int count = snapshot.staffCount(day, shift);
                 System.out.printf("%s(%d) ", shift.getDisplayName().substring(0, 3), count);
             }
             System.out.println();
         }
         
-        System.out.println("\n✓ Summary exported to console. In a real application, this would be saved to a file.");
+        System.out.print("\nSave to a file (.csv, .json or .ics, add .gz to compress), or press Enter to skip: ");
+        String target = scanner.nextLine().trim();
+        if (target.isEmpty()) {
+            return;
+        }
+        Path file = Paths.get(target);
+        try {
+            if (ScheduleExports.Format.of(file) == ScheduleExports.Format.ICALENDAR) {
+                System.out.print("Calendar for which employee (Enter for everyone)? ");
+                String name = scanner.nextLine().trim();
+                int id = name.isEmpty() ? -1 : snapshot.indexOf(name);
+                if (!name.isEmpty() && id < 0) {
+                    System.out.println("Employee not found.");
+                    return;
+                }
+                if (id >= 0) {
+                    ScheduleExports.writeCalendar(file, snapshot, id, weekStart, target.endsWith(".gz"));
+                    System.out.println("✓ Calendar for " + snapshot.name(id) + " saved to " + file);
+                    return;
+                }
+            }
+            ScheduleExports.write(file, snapshot, weekStart);
+            System.out.println("✓ Schedule saved to " + file);
+        } catch (IOException e) {
+            System.out.println("Could not export the schedule: " + e.getMessage());
+        }
     }
     
     public static void main(String[] args) {
-        ScheduleManager manager = new ScheduleManager();
+        // --report prints timings, allocation and candidate counters per phase after each generation;
+        // --state <file> restores the last session from the file and keeps it up to date
+        List<String> options = Arrays.asList(args);
+        int state = options.indexOf("--state");
+        Path stateFile = state >= 0 && state + 1 < args.length ? Paths.get(args[state + 1]) : null;
+        ScheduleManager manager = new ScheduleManager(options.contains("--report"), stateFile);
         manager.run();
     }
 } 
\ No newline at end of file
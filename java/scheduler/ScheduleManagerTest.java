@@ -1,3 +1,5 @@
+package scheduler;
+
 import dtos.*;
 
 public class ScheduleManagerTest {
@@ -0,0 +1,216 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Shift;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+// Live quality figures of one Schedule, kept current by every assignment change instead of being
+// recomputed on demand: slot coverage, preference hits and the distribution of days worked
+// (a histogram plus running sums, so min/max/mean/stddev are O(1) as well).
+//
+// Schedule is the only writer. Fields are volatile so a JMX or monitoring thread can poll a
+// running scheduler; a read may mix values from before and after a change in progress.
+public class ScheduleMetrics implements ScheduleMetricsMBean {
+    private static final int SHIFTS = Shift.values().length;
+    private static final int TOTAL_SLOTS = DayOfWeek.values().length * SHIFTS;
+    
+    private final int[] slotSizes = new int[TOTAL_SLOTS];
+    private final int[] employeesByDaysWorked = new int[DayOfWeek.values().length + 1];
+    private StaffingLevels staffing = StaffingLevels.DEFAULT; // Minimum that counts a slot as fully staffed
+    private volatile int coveredSlots;
+    private volatile int fullyStaffedSlots;
+    private volatile int employeeCount;
+    private volatile long assignments;
+    private volatile long preferenceHits;
+    private volatile long sumOfDays;
+    private volatile long sumOfSquaredDays;
+    
+    ScheduleMetrics() {
+    }
+    
+    // Updates, called by Schedule
+    
+    void employeeAdded(int daysWorked) {
+        employeesByDaysWorked[daysWorked]++;
+        employeeCount = employeeCount + 1;
+        sumOfDays = sumOfDays + daysWorked;
+        sumOfSquaredDays = sumOfSquaredDays + (long) daysWorked * daysWorked;
+    }
+    
+    void employeeRemoved(int daysWorked) {
+        employeesByDaysWorked[daysWorked]--;
+        employeeCount = employeeCount - 1;
+        sumOfDays = sumOfDays - daysWorked;
+        sumOfSquaredDays = sumOfSquaredDays - (long) daysWorked * daysWorked;
+    }
+    
+    // A slot gained (delta 1) or lost (delta -1) a person, who does or does not prefer it
+    void slotChanged(DayOfWeek day, Shift shift, boolean preferred, int delta) {
+        int slot = day.ordinal() * SHIFTS + shift.ordinal();
+        int before = slotSizes[slot];
+        int after = before + delta;
+        slotSizes[slot] = after;
+        if ((before > 0) != (after > 0)) {
+            coveredSlots = coveredSlots + (after > 0 ? 1 : -1);
+        }
+        boolean wasFull = before >= staffing.minimum(slot);
+        boolean isFull = after >= staffing.minimum(slot);
+        if (wasFull != isFull) {
+            fullyStaffedSlots = fullyStaffedSlots + (isFull ? 1 : -1);
+        }
+        assignments = assignments + delta;
+        if (preferred) {
+            preferenceHits = preferenceHits + delta;
+        }
+    }
+    
+    void daysWorkedChanged(int before, int after) {
+        employeesByDaysWorked[before]--;
+        employeesByDaysWorked[after]++;
+        sumOfDays = sumOfDays + after - before;
+        sumOfSquaredDays = sumOfSquaredDays + (long) after * after - (long) before * before;
+    }
+    
+    // A preference was added (delta 1) or removed (-1) on the slot an employee is working
+    void preferenceHitChanged(int delta) {
+        preferenceHits = preferenceHits + delta;
+    }
+    
+    // Every assignment cleared; all employees are back to zero days
+    void reset() {
+        Arrays.fill(slotSizes, 0);
+        Arrays.fill(employeesByDaysWorked, 0);
+        employeesByDaysWorked[0] = employeeCount;
+        coveredSlots = 0;
+        fullyStaffedSlots = countFullyStaffed();
+        assignments = 0;
+        preferenceHits = 0;
+        sumOfDays = 0;
+        sumOfSquaredDays = 0;
+    }
+    
+    // New staffing levels: slots already staffed are counted again against the new minimums
+    void staffingChanged(StaffingLevels staffing) {
+        this.staffing = staffing;
+        fullyStaffedSlots = countFullyStaffed();
+    }
+    
+    private int countFullyStaffed() {
+        int full = 0;
+        for (int slot = 0; slot < TOTAL_SLOTS; slot++) {
+            if (slotSizes[slot] >= staffing.minimum(slot)) {
+                full++;
+            }
+        }
+        return full;
+    }
+    
+    // Reads
+    
+    @Override
+    public int getEmployeeCount() {
+        return employeeCount;
+    }
+    
+    @Override
+    public long getAssignments() {
+        return assignments;
+    }
+    
+    @Override
+    public long getPreferenceHits() {
+        return preferenceHits;
+    }
+    
+    // Share of assignments on a shift the employee prefers
+    @Override
+    public double getPreferenceHitRate() {
+        long total = assignments;
+        return total == 0 ? 0 : preferenceHits / (double) total;
+    }
+    
+    @Override
+    public int getTotalSlots() {
+        return TOTAL_SLOTS;
+    }
+    
+    // Slots with at least one person
+    @Override
+    public int getCoveredSlots() {
+        return coveredSlots;
+    }
+    
+    // Slots with at least the minimum staff
+    @Override
+    public int getFullyStaffedSlots() {
+        return fullyStaffedSlots;
+    }
+    
+    // Slots below the minimum staff, empty ones included
+    @Override
+    public int getUnderstaffedSlots() {
+        return TOTAL_SLOTS - fullyStaffedSlots;
+    }
+    
+    @Override
+    public int getMinDaysWorked() {
+        for (int days = 0; days < employeesByDaysWorked.length; days++) {
+            if (employeesByDaysWorked[days] > 0) {
+                return days;
+            }
+        }
+        return 0;
+    }
+    
+    @Override
+    public int getMaxDaysWorked() {
+        for (int days = employeesByDaysWorked.length - 1; days > 0; days--) {
+            if (employeesByDaysWorked[days] > 0) {
+                return days;
+            }
+        }
+        return 0;
+    }
+    
+    @Override
+    public double getMeanDaysWorked() {
+        int count = employeeCount;
+        return count == 0 ? 0 : sumOfDays / (double) count;
+    }
+    
+    @Override
+    public double getDaysWorkedStdDev() {
+        int count = employeeCount;
+        if (count == 0) {
+            return 0;
+        }
+        double mean = sumOfDays / (double) count;
+        return Math.sqrt(Math.max(0, sumOfSquaredDays / (double) count - mean * mean));
+    }
+    
+    // Publish on the platform MBean server as scheduler:type=ScheduleMetrics,name=<name>
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = objectName(name);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+    
+    public void unregisterMBean(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+    }
+    
+    private static ObjectName objectName(String name) throws JMException {
+        return new ObjectName("scheduler:type=ScheduleMetrics,name=" + ObjectName.quote(name));
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("covered %d/%d, fully staffed %d, preference hits %d/%d, days worked %d-%d (mean %.2f, sd %.2f)",
+            getCoveredSlots(), TOTAL_SLOTS, getFullyStaffedSlots(), getPreferenceHits(), getAssignments(),
+            getMinDaysWorked(), getMaxDaysWorked(), getMeanDaysWorked(), getDaysWorkedStdDev());
+    }
+}
@@ -0,0 +1,28 @@
+package scheduler;
+
+// JMX view of ScheduleMetrics; every attribute is a constant-time read
+public interface ScheduleMetricsMBean {
+    int getEmployeeCount();
+    
+    long getAssignments();
+    
+    long getPreferenceHits();
+    
+    double getPreferenceHitRate();
+    
+    int getTotalSlots();
+    
+    int getCoveredSlots();
+    
+    int getFullyStaffedSlots();
+    
+    int getUnderstaffedSlots();
+    
+    int getMinDaysWorked();
+    
+    int getMaxDaysWorked();
+    
+    double getMeanDaysWorked();
+    
+    double getDaysWorkedStdDev();
+}
@@ -0,0 +1,141 @@
+package scheduler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+
+// Per-phase breakdown of the last generation of a Schedule with profiling on
+// (Schedule.setProfiling): wall time, bytes allocated and candidate search counters.
+// Phases are listed as they finish, so the enclosing "total" comes last.
+public class ScheduleProfile {
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final List<Phase> phases = new ArrayList<>();
+
+    // Figures for one phase; allocatedBytes is -1 where the JVM cannot measure it
+    public static final class Phase {
+        private final String name;
+        private final long nanos;
+        private final long allocatedBytes;
+        private final long assignments;
+        private final long candidateLookups;
+        private final long bucketsScanned;
+        private final long preferredPicks;
+        private final long fallbackPicks;
+        private final long failedFills;
+
+        Phase(String name, long nanos, long allocatedBytes, long assignments, long candidateLookups,
+              long bucketsScanned, long preferredPicks, long fallbackPicks, long failedFills) {
+            this.name = name;
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+            this.assignments = assignments;
+            this.candidateLookups = candidateLookups;
+            this.bucketsScanned = bucketsScanned;
+            this.preferredPicks = preferredPicks;
+            this.fallbackPicks = fallbackPicks;
+            this.failedFills = failedFills;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        // Net change in assignments, so a phase that clears the schedule comes out negative
+        public long getAssignments() {
+            return assignments;
+        }
+
+        public long getCandidateLookups() {
+            return candidateLookups;
+        }
+
+        public long getBucketsScanned() {
+            return bucketsScanned;
+        }
+
+        public long getPreferredPicks() {
+            return preferredPicks;
+        }
+
+        public long getFallbackPicks() {
+            return fallbackPicks;
+        }
+
+        public long getFailedFills() {
+            return failedFills;
+        }
+    }
+
+    // Counter readings at the start of a phase
+    static final class Mark {
+        final long nanos;
+        final long allocatedBytes;
+        final long assignments;
+        final long lookups;
+        final long bucketsScanned;
+        final long preferredPicks;
+        final long fallbackPicks;
+        final long failedFills;
+
+        Mark(CandidateCounters counters, long assignments, boolean measureAllocation) {
+            this.allocatedBytes = measureAllocation ? allocatedBytes() : -1;
+            this.assignments = assignments;
+            this.lookups = counters.lookups;
+            this.bucketsScanned = counters.bucketsScanned;
+            this.preferredPicks = counters.preferredPicks;
+            this.fallbackPicks = counters.fallbackPicks;
+            this.failedFills = counters.failedFills;
+            this.nanos = System.nanoTime();
+        }
+    }
+
+    void clear() {
+        phases.clear();
+    }
+
+    void record(String name, Mark start, CandidateCounters counters, long assignments) {
+        long nanos = System.nanoTime() - start.nanos;
+        long allocated = start.allocatedBytes < 0 ? -1 : allocatedBytes() - start.allocatedBytes;
+        phases.add(new Phase(name, nanos, allocated, assignments - start.assignments,
+            counters.lookups - start.lookups, counters.bucketsScanned - start.bucketsScanned,
+            counters.preferredPicks - start.preferredPicks,
+            counters.fallbackPicks - start.fallbackPicks, counters.failedFills - start.failedFills));
+    }
+
+    // Bytes allocated so far by this thread, or -1 if the JVM does not track it
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    public List<Phase> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
+    // Fixed-width table, one line per phase
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-32s %10s %12s %10s %9s %9s %9s %9s %7s%n",
+            "Phase", "ms", "alloc KB", "net assign", "lookups", "buckets", "preferred", "fallback", "failed"));
+        for (Phase phase : phases) {
+            out.append(String.format("%-32s %10.3f %12s %10d %9d %9d %9d %9d %7d%n",
+                phase.name, phase.nanos / 1e6,
+                phase.allocatedBytes < 0 ? "n/a" : Long.toString(phase.allocatedBytes / 1024),
+                phase.assignments, phase.candidateLookups, phase.bucketsScanned, phase.preferredPicks,
+                phase.fallbackPicks, phase.failedFills));
+        }
+        return out.toString();
+    }
+}
@@ -0,0 +1,345 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Role;
+import dtos.Shift;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Text rendering of a Schedule (or a HorizonSchedule): the table followed by the summary.
+//
+// Output is collected in one reusable buffer that is handed to the target whenever it fills up,
+// so memory stays bounded however many names a cell holds. Column widths are computed from name
+// lengths alone and cells are written name by name, so no joined cell string is ever built.
+// Not thread-safe; use one renderer per output.
+public class ScheduleRenderer {
+    static final int DAY_COLUMN_WIDTH = 12;
+    static final int DATE_COLUMN_WIDTH = 16;
+    static final int MIN_COLUMN_WIDTH = 15;
+    static final int MAX_COLUMN_WIDTH = 60;
+    private static final int BUFFER_SIZE = 8192;
+    private static final String NEWLINE = System.lineSeparator();
+    private static final String SEPARATOR = ", ";
+    private static final String EMPTY_CELL = "None";
+
+    private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE + 256);
+    private final Appendable out;
+    private final WritableByteChannel channel;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer bytes;
+
+    // Render to an Appendable (a PrintStream, Writer, StringBuilder, ...)
+    public ScheduleRenderer(Appendable out) {
+        this.out = Objects.requireNonNull(out);
+        this.channel = null;
+        this.encoder = null;
+        this.bytes = null;
+    }
+
+    // Render UTF-8 encoded to a channel, e.g. a FileChannel
+    public ScheduleRenderer(WritableByteChannel channel) {
+        this.out = null;
+        this.channel = Objects.requireNonNull(channel);
+        this.encoder = StandardCharsets.UTF_8.newEncoder();
+        this.bytes = ByteBuffer.allocateDirect(BUFFER_SIZE * 2);
+    }
+
+    // Table plus summary, as printed by Schedule.printSchedule
+    public void render(Schedule schedule) throws IOException {
+        renderTable(schedule);
+        renderSummary(schedule);
+    }
+
+    public void renderTable(Schedule schedule) throws IOException {
+        line("");
+        line("=== WEEKLY EMPLOYEE SCHEDULE ===");
+        line("");
+
+        int[] widths = columnWidths(schedule);
+        header("Day", DAY_COLUMN_WIDTH, widths);
+
+        // One row per day
+        for (DayOfWeek day : DayOfWeek.values()) {
+            pad(day.getDisplayName(), DAY_COLUMN_WIDTH);
+            for (Shift shift : Shift.values()) {
+                cell(schedule.staffOf(day, shift), widths[shift.ordinal()]);
+            }
+            newline();
+        }
+        flush();
+    }
+
+    public void renderSummary(Schedule schedule) throws IOException {
+        line("");
+        line("=== SCHEDULE SUMMARY ===");
+
+        // Employee workload
+        line("Employee Workload:");
+        for (Employee employee : schedule.getEmployees()) {
+            append("  ").append(employee.getName()).append(": ");
+            append(Integer.toString(employee.getDaysWorked())).append(" days worked");
+            newline();
+        }
+
+        // Coverage analysis, straight from the live metrics
+        line("");
+        line("Coverage Analysis:");
+        ScheduleMetrics metrics = schedule.getMetrics();
+        int totalShifts = metrics.getTotalSlots();
+        int coveredShifts = metrics.getCoveredSlots();
+        int fullyStaffedShifts = metrics.getFullyStaffedSlots();
+        line(String.format("  Total shifts: %d", totalShifts));
+        line(String.format("  Covered shifts: %d (%.1f%%)", coveredShifts, (coveredShifts * 100.0 / totalShifts)));
+        line(String.format("  Fully staffed shifts: %d (%.1f%%)", fullyStaffedShifts, (fullyStaffedShifts * 100.0 / totalShifts)));
+        List<ConflictRecord> conflicts = schedule.getConflicts();
+        if (!conflicts.isEmpty()) {
+            int[] byResolution = new int[ConflictRecord.Resolution.values().length];
+            for (ConflictRecord conflict : conflicts) {
+                byResolution[conflict.getResolution().ordinal()]++;
+            }
+            // Counted over the conflicts still held; older ones may have dropped out (see ConflictLog)
+            long recorded = schedule.getConflictsRecorded();
+            line(String.format("  Preferences on full shifts: %d (%d placed the same day, %d the next day, %d not placed)%s",
+                conflicts.size(), byResolution[ConflictRecord.Resolution.SAME_DAY.ordinal()],
+                byResolution[ConflictRecord.Resolution.NEXT_DAY.ordinal()],
+                byResolution[ConflictRecord.Resolution.UNRESOLVED.ordinal()],
+                recorded > conflicts.size() ? String.format(", the latest of %d recorded", recorded) : ""));
+        }
+
+        renderViolations(schedule);
+        flush();
+    }
+
+    private void renderViolations(Schedule schedule) throws IOException {
+        line("");
+        line("Constraint Violations:");
+        boolean hasViolations = false;
+
+        // Max days per employee
+        for (Employee employee : schedule.getEmployees()) {
+            if (employee.getDaysWorked() > Schedule.MAX_DAYS_PER_EMPLOYEE) {
+                line(String.format("  WARNING: %s works %d days (exceeds limit of %d)",
+                    employee.getName(), employee.getDaysWorked(), Schedule.MAX_DAYS_PER_EMPLOYEE));
+                hasViolations = true;
+            }
+        }
+
+        // Minimum staffing
+        StaffingLevels staffing = schedule.getStaffing();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Shift shift : Shift.values()) {
+                int staffCount = schedule.staffOf(day, shift).size();
+                if (staffCount > 0 && staffCount < staffing.minimum(day, shift)) {
+                    line(String.format("  WARNING: %s %s shift has only %d employee(s) (minimum %d required)",
+                        day.getDisplayName(), shift.getDisplayName(), staffCount, staffing.minimum(day, shift)));
+                    hasViolations = true;
+                }
+                int covered = 0;
+                for (Employee employee : schedule.staffOf(day, shift)) {
+                    covered |= employee.getStore().roleMask(employee.getRow());
+                }
+                for (Role role : Role.values()) {
+                    if ((staffing.requiredRoles(day, shift) & ~covered & role.bit()) != 0) {
+                        line(String.format("  WARNING: %s %s shift has no %s", day.getDisplayName(),
+                            shift.getDisplayName(), role.getDisplayName().toLowerCase()));
+                        hasViolations = true;
+                    }
+                }
+            }
+        }
+
+        if (!hasViolations) {
+            line("  No constraint violations found.");
+        }
+    }
+
+    // Table with one row per date, then workload (including the busiest 7-day window) and coverage
+    public void render(HorizonSchedule horizon) throws IOException {
+        line("");
+        line("=== SCHEDULE " + horizon.getStartDate() + " TO " + horizon.getDate(horizon.getDayCount() - 1) + " ===");
+        line("");
+
+        int[] widths = columnWidths(horizon.getDayCount(), horizon::getStaff);
+        header("Date", DATE_COLUMN_WIDTH, widths);
+        for (int day = 0; day < horizon.getDayCount(); day++) {
+            pad(horizon.getDayOfWeek(day).getDisplayName().substring(0, 3) + " " + horizon.getDate(day), DATE_COLUMN_WIDTH);
+            for (Shift shift : Shift.values()) {
+                cell(horizon.getStaff(day, shift), widths[shift.ordinal()]);
+            }
+            newline();
+        }
+
+        line("");
+        line("=== SCHEDULE SUMMARY ===");
+        line("Employee Workload:");
+        for (Employee employee : horizon.getEmployees()) {
+            append("  ").append(employee.getName()).append(": ");
+            append(Integer.toString(horizon.getDaysWorked(employee))).append(" days worked, at most ");
+            append(Integer.toString(horizon.getMaxDaysInAnyWindow(employee))).append(" in any 7 days");
+            newline();
+        }
+
+        line("");
+        line("Coverage Analysis:");
+        int totalShifts = 0;
+        int fullyStaffedShifts = 0;
+        for (int day = 0; day < horizon.getDayCount(); day++) {
+            for (Shift shift : Shift.values()) {
+                totalShifts++;
+                if (horizon.getStaff(day, shift).size() >= Schedule.MIN_EMPLOYEES_PER_SHIFT) fullyStaffedShifts++;
+            }
+        }
+        line(String.format("  Total shifts: %d", totalShifts));
+        line(String.format("  Fully staffed shifts: %d (%.1f%%)", fullyStaffedShifts, (fullyStaffedShifts * 100.0 / totalShifts)));
+        flush();
+    }
+
+    private void header(String label, int labelWidth, int[] widths) throws IOException {
+        pad(label, labelWidth);
+        int totalWidth = labelWidth;
+        for (Shift shift : Shift.values()) {
+            pad(shift.getDisplayName(), widths[shift.ordinal()]);
+            totalWidth += widths[shift.ordinal()];
+        }
+        newline();
+        repeat('-', totalWidth);
+        newline();
+    }
+
+    // Staff of one table cell, by row (day) and shift
+    private interface Slots {
+        List<Employee> staff(int row, Shift shift);
+    }
+
+    static int[] columnWidths(Schedule schedule) {
+        DayOfWeek[] days = DayOfWeek.values();
+        return columnWidths(days.length, (row, shift) -> schedule.staffOf(days[row], shift));
+    }
+
+    // Column widths: the joined cell length plus 2, at least 15 and at most 60. Lengths are summed
+    // without joining, and a cell stops being measured once it reaches the cap.
+    private static int[] columnWidths(int rows, Slots slots) {
+        Shift[] shifts = Shift.values();
+        int[] widths = new int[shifts.length];
+        for (int i = 0; i < shifts.length; i++) {
+            widths[i] = Math.max(shifts[i].getDisplayName().length() + 2, MIN_COLUMN_WIDTH);
+        }
+        for (int row = 0; row < rows; row++) {
+            for (int i = 0; i < shifts.length; i++) {
+                List<Employee> staff = slots.staff(row, shifts[i]);
+                int width = 2 - SEPARATOR.length();
+                for (int k = 0; k < staff.size() && width < MAX_COLUMN_WIDTH; k++) {
+                    width += SEPARATOR.length() + staff.get(k).getName().length();
+                }
+                if (!staff.isEmpty()) {
+                    widths[i] = Math.max(widths[i], width);
+                }
+            }
+        }
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = Math.min(widths[i], MAX_COLUMN_WIDTH);
+        }
+        return widths;
+    }
+
+    // Left-aligned cell like "%-<width>s" over the joined names; longer cells are not truncated
+    private void cell(List<Employee> staff, int width) throws IOException {
+        if (staff.isEmpty()) {
+            pad(EMPTY_CELL, width);
+            return;
+        }
+        int written = 0;
+        for (int k = 0; k < staff.size(); k++) {
+            if (k > 0) {
+                append(SEPARATOR);
+                written += SEPARATOR.length();
+            }
+            String name = staff.get(k).getName();
+            append(name);
+            written += name.length();
+        }
+        repeat(' ', width - written);
+    }
+
+    private void pad(String text, int width) throws IOException {
+        append(text);
+        repeat(' ', width - text.length());
+    }
+
+    private void repeat(char c, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            buffer.append(c);
+        }
+        spillIfFull();
+    }
+
+    private void line(String text) throws IOException {
+        append(text);
+        newline();
+    }
+
+    private void newline() throws IOException {
+        append(NEWLINE);
+    }
+
+    private ScheduleRenderer append(String text) throws IOException {
+        buffer.append(text);
+        spillIfFull();
+        return this;
+    }
+
+    private void spillIfFull() throws IOException {
+        if (buffer.length() >= BUFFER_SIZE) {
+            spill(false);
+        }
+    }
+
+    // Hand everything buffered so far to the target
+    public void flush() throws IOException {
+        spill(true);
+    }
+
+    private void spill(boolean endOfInput) throws IOException {
+        if (out != null) {
+            out.append(buffer);
+            buffer.setLength(0);
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(buffer);
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isError()) {
+                result.throwException();
+            }
+            if (result.isUnderflow()) {
+                break;
+            }
+            drain();
+        }
+        if (endOfInput) {
+            while (encoder.flush(bytes).isOverflow()) {
+                drain();
+            }
+            encoder.reset();
+        }
+        drain();
+        // A trailing high surrogate stays buffered until its pair arrives
+        buffer.delete(0, chars.position());
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+}
@@ -0,0 +1,70 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Shift;
+
+// Quality of a solved schedule, higher is better. Used to pick the best of several candidate
+// schedules (see MultiStartSchedulingStrategy). The basic measures are each in [0, 1].
+@FunctionalInterface
+public interface ScheduleScore {
+    double score(Schedule schedule);
+    
+    // Coverage first, then preference hits, then fairness
+    ScheduleScore DEFAULT = weighted(100, 10, 1);
+    
+    // Share of shift places filled, counting up to each shift's staffing target
+    static ScheduleScore coverage() {
+        return schedule -> {
+            StaffingLevels staffing = schedule.getStaffing();
+            int filled = 0;
+            for (DayOfWeek day : DayOfWeek.values()) {
+                for (Shift shift : Shift.values()) {
+                    filled += Math.min(schedule.staffOf(day, shift).size(), staffing.target(day, shift));
+                }
+            }
+            int places = staffing.totalTarget();
+            return places == 0 ? 1 : filled / (double) places;
+        };
+    }
+    
+    // Share of assignments that are on a shift the employee prefers
+    static ScheduleScore preferenceHitRate() {
+        return schedule -> {
+            int assigned = 0;
+            for (Employee employee : schedule.getEmployees()) {
+                assigned += employee.getDaysWorked();
+            }
+            return assigned == 0 ? 0 : schedule.countPreferenceMatches() / (double) assigned;
+        };
+    }
+    
+    // 1 when everyone works the same number of days, lower as the spread (standard deviation) grows
+    static ScheduleScore fairness() {
+        return schedule -> {
+            int count = schedule.getEmployees().size();
+            if (count == 0) {
+                return 1;
+            }
+            double sum = 0;
+            double sumOfSquares = 0;
+            for (Employee employee : schedule.getEmployees()) {
+                int days = employee.getDaysWorked();
+                sum += days;
+                sumOfSquares += days * days;
+            }
+            double mean = sum / count;
+            double deviation = Math.sqrt(Math.max(0, sumOfSquares / count - mean * mean));
+            return 1 - Math.min(1, deviation / Schedule.MAX_DAYS_PER_EMPLOYEE);
+        };
+    }
+    
+    static ScheduleScore weighted(double coverageWeight, double preferenceWeight, double fairnessWeight) {
+        ScheduleScore coverage = coverage();
+        ScheduleScore preferences = preferenceHitRate();
+        ScheduleScore fairness = fairness();
+        return schedule -> coverageWeight * coverage.score(schedule)
+            + preferenceWeight * preferences.score(schedule)
+            + fairnessWeight * fairness.score(schedule);
+    }
+}
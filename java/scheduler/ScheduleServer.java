@@ -0,0 +1,471 @@
+package scheduler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Shift;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Scheduling over HTTP, for other systems to call instead of the console loop.
+//
+//   POST   /employees            CSV roster body (see RosterFiles): adds the employees and their preferences
+//   GET    /employees/{name}     one employee's week as JSON (?format=ics for a calendar)
+//   POST   /preferences          CSV "name,day,shift" rows: preferences to add, fitted into the current week
+//   DELETE /preferences          the same rows, removed
+//   POST   /schedule/generate    re-solve in the background; answers 202 at once (see /schedule/status)
+//   GET    /schedule/status      generations requested and completed, snapshot version
+//   GET    /schedule             the published week (?format=json|csv|ics, JSON by default)
+//   GET    /stats                batching counters
+//
+// Requests are served on virtual threads. Only one writer thread ever touches the Schedule:
+// handlers queue their edits and wait for the writer, which takes everything queued at once and
+// applies consecutive preference edits as one Schedule.applyChanges (one repair pass and one
+// snapshot for the lot), so a burst of updates costs one publish rather than one lock and one
+// publish each. Reads never queue: they answer from the published ScheduleSnapshot.
+//
+// The JDK HttpServer leaves TCP_NODELAY off, so every small response would wait out Nagle's
+// algorithm against the client's delayed ACK (about 40 ms a request, whatever the work). The
+// switch is the JVM-wide sun.net.httpserver.nodelay property, read once for every HttpServer in
+// the process, so the class never sets it by itself: main (and ScheduleLoadGenerator) turn it on
+// through useNoDelay unless it was given on the command line, and an application embedding the
+// server should launch with -Dsun.net.httpserver.nodelay=true.
+public class ScheduleServer implements AutoCloseable {
+    private static final int MAX_BATCH = 4096;
+    private static final long WRITER_TIMEOUT_SECONDS = 60; // Longest a handler waits for its edits
+
+    private final HttpServer server;
+    private final ExecutorService handlers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Schedule schedule;
+    private final BlockingQueue<Job> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final AtomicLong generationsRequested = new AtomicLong();
+    private volatile long generationsCompleted;
+    private volatile boolean running = true;
+
+    private final LongAdder changesApplied = new LongAdder();
+    private final LongAdder changeBatches = new LongAdder();
+
+    // Serve a schedule (which this server then owns) on a port; 0 picks a free one
+    public ScheduleServer(Schedule schedule, int port) throws IOException {
+        this.schedule = Objects.requireNonNull(schedule);
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(handlers);
+        server.createContext("/employees", this::employees);
+        server.createContext("/preferences", this::preferences);
+        server.createContext("/schedule", this::schedule);
+        server.createContext("/stats", this::stats);
+        this.writer = new Thread(this::writeLoop, "schedule-writer");
+        writer.setDaemon(true);
+    }
+
+    // Turn TCP_NODELAY on for the JDK HttpServer unless the property was set explicitly; only takes
+    // effect before the first HttpServer of the JVM is created
+    static void useNoDelay() {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    public void start() {
+        writer.start();
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // One unit of work for the writer: either edits to apply or a task to run
+    private static final class Job {
+        final List<ScheduleChange> changes;
+        final Callable<Integer> task;
+        final CompletableFuture<Integer> done = new CompletableFuture<>(); // Edits applied, or the task's result
+
+        Job(List<ScheduleChange> changes, Callable<Integer> task) {
+            this.changes = changes;
+            this.task = task;
+        }
+    }
+
+    // Queue a job for the writer; false once the server is closing. A job that slips in after the
+    // writer's last drain is taken back out, so nobody waits on a writer that has gone.
+    private boolean enqueue(Job job) {
+        if (!running) {
+            return false;
+        }
+        queue.add(job);
+        return running || !queue.remove(job);
+    }
+
+    // Why a submitted job has no result, with the status to answer: 503 when the writer could not
+    // be waited for (shutting down, timed out, interrupted), 500 when the job itself failed
+    private static final class JobFailedException extends Exception {
+        private static final long serialVersionUID = 1L; // Never serialized; keeps -Xlint:all quiet
+        final int status;
+
+        JobFailedException(int status, String message, Throwable cause) {
+            super(message, cause);
+            this.status = status;
+        }
+    }
+
+    private int submit(Job job) throws JobFailedException {
+        if (!enqueue(job)) {
+            throw new JobFailedException(503, "Server is shutting down", null);
+        }
+        try {
+            return job.done.get(WRITER_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JobFailedException(503, "Interrupted waiting for the schedule", e);
+        } catch (ExecutionException e) {
+            throw new JobFailedException(e.getCause() instanceof IOException ? 503 : 500,
+                String.valueOf(e.getCause().getMessage()), e.getCause());
+        } catch (TimeoutException e) {
+            // The job stays queued and may still be applied; the caller only stops waiting for it
+            throw new JobFailedException(503, "Timed out after " + WRITER_TIMEOUT_SECONDS + " s waiting for the schedule", e);
+        }
+    }
+
+    private void writeLoop() {
+        List<Job> batch = new ArrayList<>();
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            try {
+                run(batch);
+            } catch (Throwable e) {
+                // Whatever escaped (an Error while grouping, say) fails the jobs still waiting, and
+                // the writer carries on: it is the only thread that can ever complete a job
+                for (Job job : batch) {
+                    job.done.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+        }
+        for (Job job = queue.poll(); job != null; job = queue.poll()) {
+            job.done.completeExceptionally(new IOException("Server is shutting down"));
+        }
+    }
+
+    private void run(List<Job> batch) {
+        for (int i = 0; i < batch.size(); ) {
+            Job job = batch.get(i);
+            if (job.task != null) {
+                try {
+                    job.done.complete(job.task.call());
+                } catch (Throwable e) {
+                    job.done.completeExceptionally(e);
+                }
+                i++;
+                continue;
+            }
+            // Edits queued back to back go in as one batch
+            int end = i;
+            List<ScheduleChange> changes = new ArrayList<>();
+            while (end < batch.size() && batch.get(end).task == null) {
+                changes.addAll(batch.get(end++).changes);
+            }
+            applyBatch(batch.subList(i, end), changes);
+            i = end;
+        }
+    }
+
+    private void applyBatch(List<Job> jobs, List<ScheduleChange> changes) {
+        try {
+            Set<ScheduleChange> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
+            rejected.addAll(schedule.applyChanges(changes));
+            changesApplied.add(changes.size() - rejected.size());
+            changeBatches.increment();
+            for (Job job : jobs) {
+                int applied = job.changes.size();
+                if (!rejected.isEmpty()) {
+                    for (ScheduleChange change : job.changes) {
+                        if (rejected.contains(change)) {
+                            applied--;
+                        }
+                    }
+                }
+                job.done.complete(applied);
+            }
+        } catch (Throwable e) {
+            for (Job job : jobs) {
+                job.done.completeExceptionally(e);
+            }
+        }
+    }
+
+    // Re-solve unless a later request already did: queued generate requests collapse into one solve
+    private int generate(long generation) {
+        if (generationsCompleted < generation) {
+            long upTo = generationsRequested.get();
+            schedule.generateSchedule();
+            generationsCompleted = upTo;
+        }
+        return (int) generation;
+    }
+
+    private void employees(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            if (path.equals("/employees") || path.equals("/employees/")) {
+                if (!require(exchange, "POST")) {
+                    return;
+                }
+                RosterFiles.Roster roster = readRoster(exchange);
+                if (roster == null) {
+                    return;
+                }
+                int duplicates;
+                try {
+                    duplicates = submit(new Job(null, () -> {
+                        int rejected = schedule.addEmployees(roster.getEmployees()).size();
+                        schedule.publish(); // The week itself only changes on the next generate
+                        return rejected;
+                    }));
+                } catch (JobFailedException e) {
+                    fail(exchange, e);
+                    return;
+                }
+                respond(exchange, 200, "{\"added\": " + (roster.getEmployees().size() - duplicates)
+                    + ", \"duplicates\": " + duplicates + ", \"preferences\": " + roster.getPreferenceRows() + "}");
+                return;
+            }
+            if (!path.startsWith("/employees/")) {
+                respond(exchange, 404, "{\"error\": \"Not found\"}");
+                return;
+            }
+            if (!require(exchange, "GET")) {
+                return;
+            }
+            String name = URLDecoder.decode(path.substring("/employees/".length()), StandardCharsets.UTF_8);
+            ScheduleSnapshot snapshot = schedule.getSnapshot();
+            int id = snapshot.indexOf(name);
+            if (id < 0) {
+                respond(exchange, 404, "{\"error\": " + ScheduleExports.jsonString("No employee named " + name) + "}");
+                return;
+            }
+            if ("ics".equals(query(exchange, "format"))) {
+                exchange.getResponseHeaders().set("Content-Type", "text/calendar; charset=utf-8");
+                exchange.sendResponseHeaders(200, 0);
+                ScheduleExports.writeCalendar(exchange.getResponseBody(), snapshot, id, weekStart());
+                return;
+            }
+            StringBuilder json = new StringBuilder("{\"name\": ").append(ScheduleExports.jsonString(snapshot.name(id)))
+                .append(", \"daysWorked\": ").append(snapshot.daysWorked(id)).append(", \"version\": ")
+                .append(snapshot.getVersion()).append(", \"assignments\": [");
+            String separator = "";
+            for (DayOfWeek day : DayOfWeek.values()) {
+                Shift shift = snapshot.assignedShift(id, day);
+                if (shift != null) {
+                    json.append(separator).append("{\"day\": \"").append(day.getDisplayName())
+                        .append("\", \"shift\": \"").append(shift.getDisplayName())
+                        .append("\", \"preferred\": ").append(snapshot.prefers(id, day, shift)).append('}');
+                    separator = ", ";
+                }
+            }
+            respond(exchange, 200, json.append("]}").toString());
+        }
+    }
+
+    private void preferences(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            boolean add = exchange.getRequestMethod().equals("POST");
+            if (!add && !require(exchange, "DELETE")) {
+                return;
+            }
+            RosterFiles.Roster rows = readRoster(exchange);
+            if (rows == null) {
+                return;
+            }
+            // Parsed employees only carry the name and the rows; Schedule applies them to its own by name
+            List<ScheduleChange> changes = new ArrayList<>();
+            for (Employee employee : rows.getEmployees()) {
+                for (DayOfWeek day : DayOfWeek.values()) {
+                    for (Shift shift : Shift.values()) {
+                        if (employee.prefersShift(day, shift)) {
+                            changes.add(add ? ScheduleChange.preferenceAdded(employee, day, shift)
+                                : ScheduleChange.preferenceRemoved(employee, day, shift));
+                        }
+                    }
+                }
+            }
+            int applied;
+            try {
+                applied = changes.isEmpty() ? 0 : submit(new Job(changes, null));
+            } catch (JobFailedException e) {
+                fail(exchange, e);
+                return;
+            }
+            // Rejected: rows the schedule did not take (see Schedule.applyChanges), such as unknown names
+            respond(exchange, 200, "{\"applied\": " + applied + ", \"rejected\": " + (changes.size() - applied)
+                + ", \"version\": " + schedule.getSnapshot().getVersion() + "}");
+        }
+    }
+
+    private void schedule(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            switch (path) {
+                case "/schedule/generate" -> {
+                    if (!require(exchange, "POST")) {
+                        return;
+                    }
+                    long generation = generationsRequested.incrementAndGet();
+                    if (!enqueue(new Job(null, () -> generate(generation)))) {
+                        respond(exchange, 503, "{\"error\": \"Server is shutting down\"}");
+                        return;
+                    }
+                    respond(exchange, 202, "{\"generation\": " + generation + "}");
+                }
+                case "/schedule/status" -> {
+                    if (require(exchange, "GET")) {
+                        long requested = generationsRequested.get();
+                        long completed = generationsCompleted;
+                        respond(exchange, 200, "{\"requested\": " + requested + ", \"completed\": " + completed
+                            + ", \"generating\": " + (completed < requested)
+                            + ", \"version\": " + schedule.getSnapshot().getVersion() + "}");
+                    }
+                }
+                case "/schedule", "/schedule/" -> {
+                    if (!require(exchange, "GET")) {
+                        return;
+                    }
+                    String format = Objects.requireNonNullElse(query(exchange, "format"), "json");
+                    ScheduleExports.Format export = ScheduleExports.Format.of(Paths.get("schedule." + format));
+                    if (export == null || format.endsWith(".gz")) {
+                        respond(exchange, 400, "{\"error\": \"format must be json, csv or ics\"}");
+                        return;
+                    }
+                    exchange.getResponseHeaders().set("Content-Type", switch (export) {
+                        case CSV -> "text/csv; charset=utf-8";
+                        case JSON -> "application/json; charset=utf-8";
+                        case ICALENDAR -> "text/calendar; charset=utf-8";
+                    });
+                    exchange.sendResponseHeaders(200, 0); // Streamed, length unknown
+                    ScheduleExports.write(exchange.getResponseBody(), export, schedule.getSnapshot(), weekStart());
+                }
+                default -> respond(exchange, 404, "{\"error\": \"Not found\"}");
+            }
+        }
+    }
+
+    private void stats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (require(exchange, "GET")) {
+                respond(exchange, 200, "{\"changesApplied\": " + changesApplied.sum() + ", \"changeBatches\": "
+                    + changeBatches.sum() + ", \"generationsCompleted\": " + generationsCompleted
+                    + ", \"employees\": " + schedule.getSnapshot().size() + "}");
+            }
+        }
+    }
+
+    // The request body as CSV roster rows; answers 400 and returns null if it does not parse
+    private static RosterFiles.Roster readRoster(HttpExchange exchange) throws IOException {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        try {
+            return RosterFiles.readCsv("request", ByteBuffer.wrap(body));
+        } catch (IOException e) {
+            respond(exchange, 400, "{\"error\": " + ScheduleExports.jsonString(e.getMessage()) + "}");
+            return null;
+        }
+    }
+
+    private static boolean require(HttpExchange exchange, String method) throws IOException {
+        if (exchange.getRequestMethod().equals(method)) {
+            return true;
+        }
+        exchange.getResponseHeaders().set("Allow", method);
+        respond(exchange, 405, "{\"error\": \"Use " + method + "\"}");
+        return false;
+    }
+
+    private static void fail(HttpExchange exchange, JobFailedException e) throws IOException {
+        respond(exchange, e.status, "{\"error\": " + ScheduleExports.jsonString(e.getMessage()) + "}");
+    }
+
+    private static String query(HttpExchange exchange, String parameter) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0 && pair.substring(0, equals).equals(parameter)) {
+                return URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    private static LocalDate weekStart() {
+        return LocalDate.now().with(TemporalAdjusters.nextOrSame(java.time.DayOfWeek.MONDAY));
+    }
+
+    // Stops taking requests, waits up to a second for those in flight, then stops the writer
+    @Override
+    public void close() {
+        server.stop(1);
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        handlers.close();
+    }
+
+    //   java scheduler.ScheduleServer [--port <n>] [roster.csv|roster.bin]
+    public static void main(String[] args) throws IOException {
+        useNoDelay();
+        int port = 8080;
+        Schedule schedule = new Schedule();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else {
+                schedule.addEmployees(RosterFiles.read(Paths.get(args[i])).getEmployees());
+                schedule.generateSchedule();
+            }
+        }
+        ScheduleServer server = new ScheduleServer(schedule, port);
+        server.start();
+        System.out.println("Scheduling service listening on port " + server.getPort());
+    }
+}
@@ -0,0 +1,202 @@
+package scheduler;
+
+import dtos.Employee;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Solves many independent site rosters (one per store location) concurrently.
+//
+// Every submitted site gets its own virtual thread, so thousands can be queued cheaply, while a
+// semaphore caps how many are solving at once (by default one per core, since solving is pure CPU).
+// Sites share nothing: each is solved on a fresh Schedule over a private copy of its roster, so
+// the caller's Employee objects are never touched and no locking is needed during a solve.
+public class ScheduleService implements AutoCloseable {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    private final int parallelism;
+    private final Supplier<? extends SchedulingStrategy> strategies;
+    private final ScheduleCache cache; // Shared by every site; null solves each one from scratch
+
+    private final LongAdder sitesCompleted = new LongAdder();
+    private final LongAdder sitesFailed = new LongAdder();
+    private final LongAdder totalSolveNanos = new LongAdder();
+    private final AtomicLong firstSubmitNanos = new AtomicLong();
+    private final AtomicLong lastCompletionNanos = new AtomicLong();
+
+    public ScheduleService() {
+        this(Runtime.getRuntime().availableProcessors(), GreedySchedulingStrategy::new);
+    }
+
+    // strategies is called once per site, so strategies need not be thread-safe
+    public ScheduleService(int parallelism, Supplier<? extends SchedulingStrategy> strategies) {
+        this(parallelism, strategies, null);
+    }
+
+    // Sites whose roster was solved before (by any site, with an equivalent strategy) come from the cache
+    public ScheduleService(int parallelism, Supplier<? extends SchedulingStrategy> strategies, ScheduleCache cache) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+        this.permits = new Semaphore(parallelism);
+        this.strategies = Objects.requireNonNull(strategies);
+        this.cache = cache;
+    }
+
+    // Outcome of one site: its schedule (over copies of the submitted employees) and timings
+    public static final class SiteResult {
+        private final String siteId;
+        private final Schedule schedule;
+        private final long waitNanos;
+        private final long solveNanos;
+
+        SiteResult(String siteId, Schedule schedule, long waitNanos, long solveNanos) {
+            this.siteId = siteId;
+            this.schedule = schedule;
+            this.waitNanos = waitNanos;
+            this.solveNanos = solveNanos;
+        }
+
+        public String getSiteId() {
+            return siteId;
+        }
+
+        public Schedule getSchedule() {
+            return schedule;
+        }
+
+        // Time spent queued behind the parallelism cap
+        public long getWaitNanos() {
+            return waitNanos;
+        }
+
+        // Time spent solving
+        public long getSolveNanos() {
+            return solveNanos;
+        }
+
+        // Submission to completion
+        public long getLatencyNanos() {
+            return waitNanos + solveNanos;
+        }
+    }
+
+    // Counters since the service was created
+    public static final class Stats {
+        private final long sitesCompleted;
+        private final long sitesFailed;
+        private final long elapsedNanos;
+        private final long totalSolveNanos;
+
+        Stats(long sitesCompleted, long sitesFailed, long elapsedNanos, long totalSolveNanos) {
+            this.sitesCompleted = sitesCompleted;
+            this.sitesFailed = sitesFailed;
+            this.elapsedNanos = elapsedNanos;
+            this.totalSolveNanos = totalSolveNanos;
+        }
+
+        public long getSitesCompleted() {
+            return sitesCompleted;
+        }
+
+        public long getSitesFailed() {
+            return sitesFailed;
+        }
+
+        // First submission to the latest completion
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double getSitesPerSecond() {
+            return elapsedNanos == 0 ? 0 : sitesCompleted * 1e9 / elapsedNanos;
+        }
+
+        public double getMeanSolveMillis() {
+            return sitesCompleted == 0 ? 0 : totalSolveNanos / 1e6 / sitesCompleted;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d sites (%d failed) in %.1f ms: %.1f sites/s, mean solve %.2f ms",
+                sitesCompleted, sitesFailed, elapsedNanos / 1e6, getSitesPerSecond(), getMeanSolveMillis());
+        }
+    }
+
+    // Queue one site. The roster is copied right away, so later edits to it do not affect the result.
+    public CompletableFuture<SiteResult> submit(String siteId, Collection<Employee> roster) {
+        long submitted = System.nanoTime();
+        firstSubmitNanos.compareAndSet(0, submitted);
+        List<Employee> copies = Schedule.copyRoster(roster);
+        CompletableFuture<SiteResult> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(e);
+                return;
+            }
+            long started = System.nanoTime();
+            try {
+                Schedule schedule = new Schedule(strategies.get());
+                schedule.setCache(cache);
+                schedule.addEmployees(copies);
+                schedule.generateSchedule();
+                long finished = System.nanoTime();
+                sitesCompleted.increment();
+                totalSolveNanos.add(finished - started);
+                lastCompletionNanos.accumulateAndGet(finished, Math::max);
+                result.complete(new SiteResult(siteId, schedule, started - submitted, finished - started));
+            } catch (Throwable e) {
+                // Errors too (an OutOfMemoryError on one site), or the caller would wait forever
+                sitesFailed.increment();
+                result.completeExceptionally(e);
+                if (e instanceof Error error) {
+                    throw error;
+                }
+            } finally {
+                permits.release();
+            }
+        });
+        return result;
+    }
+
+    // Queue every site of a map (site id -> roster), in the map's iteration order
+    public Map<String, CompletableFuture<SiteResult>> submitAll(Map<String, ? extends Collection<Employee>> sites) {
+        Map<String, CompletableFuture<SiteResult>> results = new LinkedHashMap<>();
+        for (Map.Entry<String, ? extends Collection<Employee>> site : sites.entrySet()) {
+            results.put(site.getKey(), submit(site.getKey(), site.getValue()));
+        }
+        return results;
+    }
+
+    public Stats getStats() {
+        long first = firstSubmitNanos.get();
+        long last = lastCompletionNanos.get();
+        return new Stats(sitesCompleted.sum(), sitesFailed.sum(), first == 0 || last < first ? 0 : last - first,
+            totalSolveNanos.sum());
+    }
+
+    // The shared result cache, or null
+    public ScheduleCache getCache() {
+        return cache;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    // Stops accepting sites and waits for those already queued to finish
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,343 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Employee;
+import dtos.Shift;
+
+import java.util.*;
+
+// Immutable copy of a schedule as it stood when Schedule published it (after each generation or
+// applied change). Schedule swaps the whole snapshot in through a volatile field, so a reader holding
+// one sees a consistent week however the live schedule moves on, and needs no lock to read it.
+//
+// Employees are numbered 0..size()-1 in roster order. Per-employee data (names, preference bits,
+// one byte per employee and day for assignments) sits in pages of PAGE_SIZE ids, and each slot is
+// an int array of ids, so the accessors below only index arrays and never allocate. A change
+// publishes through derive(), which copies only the pages and slots it touched and shares the rest
+// with the snapshot before it: the cost follows the size of the change, not of the roster.
+public final class ScheduleSnapshot {
+    private static final int DAYS = DayOfWeek.values().length;
+    private static final int SHIFTS = Shift.values().length;
+    private static final int SLOTS = DAYS * SHIFTS;
+    private static final Shift[] SHIFT_VALUES = Shift.values();
+    private static final int PAGE_BITS = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    static final ScheduleSnapshot EMPTY = new ScheduleSnapshot(0, 0, new Pages(0, null), new int[SLOTS][0],
+        new int[1][PAGE_SIZE]);
+
+    private final long version;
+    private final int size;
+    private final String[][] names;       // [id >> PAGE_BITS][id & PAGE_MASK]
+    private final int[][] preferenceBits; // Same pages -> bit day * SHIFTS + shift
+    private final byte[][] assignments;   // Same pages, [(id & PAGE_MASK) * DAYS + day] -> 0 = off, otherwise shift + 1
+    private final int[][] slots;          // [day * SHIFTS + shift] -> ids
+    private final int totalAssignments;
+    private final int[][] nameTable;      // Open addressing on the case-folded name hash, paged: id + 1, 0 = empty
+
+    private ScheduleSnapshot(long version, int size, Pages rows, int[][] slots, int[][] nameTable) {
+        this.version = version;
+        this.size = size;
+        this.names = rows.names;
+        this.preferenceBits = rows.preferenceBits;
+        this.assignments = rows.assignments;
+        this.slots = slots;
+        int total = 0;
+        for (int[] staff : slots) {
+            total += staff.length;
+        }
+        this.totalAssignments = total;
+        this.nameTable = nameTable;
+    }
+
+    // Copy the live state; called by the one thread that mutates the schedule
+    static ScheduleSnapshot of(long version, List<Employee> roster, Map<DayOfWeek, Map<Shift, List<Employee>>> schedule) {
+        int size = roster.size();
+        Pages rows = new Pages(size, null);
+        for (int id = 0; id < size; id++) {
+            rows.set(id, roster.get(id));
+        }
+        int[][] nameTable = newNameTable(size);
+        for (int id = 0; id < size; id++) {
+            insertName(nameTable, null, rows.names, id);
+        }
+        int[][] slots = new int[SLOTS][];
+        for (int slot = 0; slot < SLOTS; slot++) {
+            slots[slot] = slotIds(schedule, slot, rows.names, nameTable);
+        }
+        return new ScheduleSnapshot(version, size, rows, slots, nameTable);
+    }
+
+    // This snapshot moved on to the live state, given everything that changed since it was taken:
+    // employees appended to the roster, employees whose preferences or shifts changed, positions
+    // whose employee was replaced or that were given up (Schedule moves the last employee into the
+    // place of one who leaves, so the roster can also shrink), and the slots (bit day * SHIFTS +
+    // shift) whose staff changed. Only the pages and slots these touch are copied.
+    ScheduleSnapshot derive(long version, List<Employee> roster, Map<DayOfWeek, Map<Shift, List<Employee>>> schedule,
+                            Collection<Employee> changed, Collection<Integer> replaced, int changedSlots) {
+        int newSize = roster.size();
+        int kept = Math.min(size, newSize);
+        Pages rows = new Pages(newSize, this);
+
+        // The table keeps its size unless the roster outgrows it, then is built again (doubling).
+        // Names leave it before any row changes, while every entry still refers to this snapshot's names.
+        int[][] nameTable;
+        if (nameTableLength(newSize) <= this.nameTable.length * PAGE_SIZE) {
+            nameTable = this.nameTable.clone();
+            boolean[] copied = new boolean[nameTable.length];
+            for (int id : replaced) {
+                if (id < size) {
+                    deleteName(nameTable, copied, names, id);
+                }
+            }
+            setRows(rows, roster, replaced, kept, newSize);
+            for (int id : replaced) {
+                if (id < kept) {
+                    insertName(nameTable, copied, rows.names, id);
+                }
+            }
+            for (int id = size; id < newSize; id++) {
+                insertName(nameTable, copied, rows.names, id);
+            }
+        } else {
+            setRows(rows, roster, replaced, kept, newSize);
+            nameTable = newNameTable(newSize);
+            for (int id = 0; id < newSize; id++) {
+                insertName(nameTable, null, rows.names, id);
+            }
+        }
+
+        for (Employee employee : changed) {
+            int id = indexOf(employee.getName(), rows.names, nameTable);
+            if (id < 0 || roster.get(id) != employee) {
+                throw new IllegalStateException(employee.getName() + " is not at its roster position any more");
+            }
+            rows.set(id, employee);
+        }
+
+        int[][] slots = this.slots.clone();
+        for (int bits = changedSlots; bits != 0; bits &= bits - 1) {
+            int slot = Integer.numberOfTrailingZeros(bits);
+            slots[slot] = slotIds(schedule, slot, rows.names, nameTable);
+        }
+        return new ScheduleSnapshot(version, newSize, rows, slots, nameTable);
+    }
+
+    // Rows of replaced positions still on the roster, and of appended ones
+    private static void setRows(Pages rows, List<Employee> roster, Collection<Integer> replaced, int kept, int newSize) {
+        for (int id : replaced) {
+            if (id < kept) {
+                rows.set(id, roster.get(id));
+            }
+        }
+        for (int id = kept; id < newSize; id++) {
+            rows.set(id, roster.get(id));
+        }
+    }
+
+    // Ids of one slot's staff, looked up by name in the new snapshot's table
+    private static int[] slotIds(Map<DayOfWeek, Map<Shift, List<Employee>>> schedule, int slot, String[][] names, int[][] nameTable) {
+        List<Employee> staff = schedule.get(DayOfWeek.values()[slot / SHIFTS]).get(SHIFT_VALUES[slot % SHIFTS]);
+        int[] ids = new int[staff.size()];
+        for (int k = 0; k < ids.length; k++) {
+            ids[k] = indexOf(staff.get(k).getName(), names, nameTable);
+        }
+        return ids;
+    }
+
+    // Per-employee pages being written for a new snapshot: pages start out shared with the base
+    // snapshot (if any) and are copied the first time one of their rows is set
+    private static final class Pages {
+        final String[][] names;
+        final int[][] preferenceBits;
+        final byte[][] assignments;
+        private final boolean[] copied;
+
+        Pages(int size, ScheduleSnapshot base) {
+            int pages = (size + PAGE_MASK) >>> PAGE_BITS;
+            if (base == null) {
+                names = new String[pages][];
+                preferenceBits = new int[pages][];
+                assignments = new byte[pages][];
+            } else {
+                names = Arrays.copyOf(base.names, pages);
+                preferenceBits = Arrays.copyOf(base.preferenceBits, pages);
+                assignments = Arrays.copyOf(base.assignments, pages);
+            }
+            copied = new boolean[pages];
+        }
+
+        void set(int id, Employee employee) {
+            int page = id >>> PAGE_BITS;
+            if (!copied[page]) {
+                names[page] = names[page] == null ? new String[PAGE_SIZE] : names[page].clone();
+                preferenceBits[page] = preferenceBits[page] == null ? new int[PAGE_SIZE] : preferenceBits[page].clone();
+                assignments[page] = assignments[page] == null ? new byte[PAGE_SIZE * DAYS] : assignments[page].clone();
+                copied[page] = true;
+            }
+            int row = id & PAGE_MASK;
+            names[page][row] = employee.getName();
+            int bits = 0;
+            for (DayOfWeek day : DayOfWeek.values()) {
+                bits |= employee.getStore().preferenceMask(employee.getRow(), day) << (day.ordinal() * SHIFTS);
+                Shift shift = employee.getAssignedShift(day);
+                assignments[page][row * DAYS + day.ordinal()] = (byte) (shift == null ? 0 : shift.ordinal() + 1);
+            }
+            preferenceBits[page][row] = bits;
+        }
+    }
+
+    // Two to four table entries per name, in whole pages
+    private static int nameTableLength(int size) {
+        return Math.max(Integer.highestOneBit(Math.max(size, 1)) << 2, PAGE_SIZE);
+    }
+
+    private static int[][] newNameTable(int size) {
+        return new int[nameTableLength(size) >>> PAGE_BITS][PAGE_SIZE];
+    }
+
+    // Enter names[id]; with copied set, a page shared with an older snapshot is copied before its first write
+    private static void insertName(int[][] nameTable, boolean[] copied, String[][] names, int id) {
+        int mask = nameTable.length * PAGE_SIZE - 1;
+        int i = foldedHash(names[id >>> PAGE_BITS][id & PAGE_MASK]) & mask;
+        while (nameTable[i >>> PAGE_BITS][i & PAGE_MASK] != 0) {
+            i = (i + 1) & mask;
+        }
+        int page = i >>> PAGE_BITS;
+        if (copied != null && !copied[page]) {
+            nameTable[page] = nameTable[page].clone();
+            copied[page] = true;
+        }
+        nameTable[page][i & PAGE_MASK] = id + 1;
+    }
+
+    // Take id's entry out of the table (names[id] is its name) and shift later entries of the same
+    // probe run back into the gap, so lookups still find them without tombstones
+    private static void deleteName(int[][] nameTable, boolean[] copied, String[][] names, int id) {
+        int mask = nameTable.length * PAGE_SIZE - 1;
+        int hole = foldedHash(names[id >>> PAGE_BITS][id & PAGE_MASK]) & mask;
+        while (nameTable[hole >>> PAGE_BITS][hole & PAGE_MASK] != id + 1) {
+            hole = (hole + 1) & mask;
+        }
+        for (int i = (hole + 1) & mask; ; i = (i + 1) & mask) {
+            int entry = nameTable[i >>> PAGE_BITS][i & PAGE_MASK];
+            if (entry == 0) {
+                break;
+            }
+            int other = entry - 1;
+            int home = foldedHash(names[other >>> PAGE_BITS][other & PAGE_MASK]) & mask;
+            // The entry may move back into the hole unless its home lies after the hole, up to it
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                setEntry(nameTable, copied, hole, entry);
+                hole = i;
+            }
+        }
+        setEntry(nameTable, copied, hole, 0);
+    }
+
+    private static void setEntry(int[][] nameTable, boolean[] copied, int i, int entry) {
+        int page = i >>> PAGE_BITS;
+        if (!copied[page]) {
+            nameTable[page] = nameTable[page].clone();
+            copied[page] = true;
+        }
+        nameTable[page][i & PAGE_MASK] = entry;
+    }
+
+    private static int indexOf(String name, String[][] names, int[][] nameTable) {
+        int mask = nameTable.length * PAGE_SIZE - 1;
+        for (int i = foldedHash(name) & mask; ; i = (i + 1) & mask) {
+            int entry = nameTable[i >>> PAGE_BITS][i & PAGE_MASK];
+            if (entry == 0) {
+                return -1;
+            }
+            int id = entry - 1;
+            if (names[id >>> PAGE_BITS][id & PAGE_MASK].equalsIgnoreCase(name)) {
+                return id;
+            }
+        }
+    }
+
+    // Increases with every publication of the same Schedule
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String name(int id) {
+        checkId(id);
+        return names[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    // Id of the employee with this name (ignoring case, as Schedule does), or -1
+    public int indexOf(String name) {
+        return indexOf(name, names, nameTable);
+    }
+
+    // Hash of Schedule.nameKey(name) without building the key
+    private static int foldedHash(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    // Shift worked on a day, or null for a day off
+    public Shift assignedShift(int id, DayOfWeek day) {
+        checkId(id);
+        int code = assignments[id >>> PAGE_BITS][(id & PAGE_MASK) * DAYS + day.ordinal()];
+        return code == 0 ? null : SHIFT_VALUES[code - 1];
+    }
+
+    public int daysWorked(int id) {
+        checkId(id);
+        byte[] page = assignments[id >>> PAGE_BITS];
+        int days = 0;
+        for (int day = 0; day < DAYS; day++) {
+            if (page[(id & PAGE_MASK) * DAYS + day] != 0) {
+                days++;
+            }
+        }
+        return days;
+    }
+
+    // All of an employee's preferences, bit day * 3 + shift
+    int preferenceBits(int id) {
+        checkId(id);
+        return preferenceBits[id >>> PAGE_BITS][id & PAGE_MASK];
+    }
+
+    public boolean prefers(int id, DayOfWeek day, Shift shift) {
+        return (preferenceBits(id) & (1 << (day.ordinal() * SHIFTS + shift.ordinal()))) != 0;
+    }
+
+    // Pages are whole, so ids past the end of the last one would read its unused rows
+    private void checkId(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No employee " + id + " of " + size);
+        }
+    }
+
+    public int staffCount(DayOfWeek day, Shift shift) {
+        return slots[day.ordinal() * SHIFTS + shift.ordinal()].length;
+    }
+
+    // Id of the k-th employee on a slot, 0 <= k < staffCount(day, shift)
+    public int staffId(DayOfWeek day, Shift shift, int k) {
+        int[] staff = slots[day.ordinal() * SHIFTS + shift.ordinal()];
+        if (k < 0 || k >= staff.length) {
+            throw new IndexOutOfBoundsException("No staff member " + k + " on " + day + " " + shift);
+        }
+        return staff[k];
+    }
+
+    // Assignments across the week
+    public int totalAssignments() {
+        return totalAssignments;
+    }
+}
@@ -0,0 +1,17 @@
+package scheduler;
+
+// How Schedule.generateSchedule() fills the week. Implementations start from a cleared schedule
+// and must respect the same constraints: one shift per day, the weekly day cap, at most three
+// people per shift, and at least two wherever the roster allows it.
+public interface SchedulingStrategy {
+    void generate(Schedule schedule);
+    
+    String getName();
+    
+    // Identifies this strategy's results in a ScheduleCache: strategies with equal keys must solve
+    // equal rosters to equal weeks. The default, null, is for results that vary from run to run
+    // (time budgets, unseeded randomness), which are never cached.
+    default String getCacheKey() {
+        return null;
+    }
+}
@@ -0,0 +1,71 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Shift;
+
+import java.util.*;
+
+// Free places left on each day/shift slot below its staffing target, kept in step with the schedule
+// by Schedule.
+// Alongside the counts, each day has one bit per shift that still has room, so finding a shift
+// with room on a day (or learning there is none) is a single mask test.
+class SlotCapacity {
+    private static final Shift[] SHIFTS = Shift.values();
+
+    private final StaffingLevels staffing;
+    private final int[] remaining = new int[DayOfWeek.values().length * SHIFTS.length];
+    private final int[] freeShifts = new int[DayOfWeek.values().length]; // [day] -> bit per shift with room
+    private int total;
+
+    SlotCapacity(StaffingLevels staffing) {
+        this.staffing = staffing;
+        reset();
+    }
+
+    // Every slot empty again
+    void reset() {
+        Arrays.fill(freeShifts, 0);
+        total = 0;
+        for (int slot = 0; slot < remaining.length; slot++) {
+            remaining[slot] = staffing.target(slot);
+            total += remaining[slot];
+            if (remaining[slot] > 0) {
+                freeShifts[slot / SHIFTS.length] |= 1 << (slot % SHIFTS.length);
+            }
+        }
+    }
+
+    // Record staff joining (+1) or leaving (-1) a slot
+    void staffChanged(DayOfWeek day, Shift shift, int delta) {
+        int slot = day.ordinal() * SHIFTS.length + shift.ordinal();
+        int before = Math.max(remaining[slot], 0);
+        remaining[slot] -= delta;
+        int after = Math.max(remaining[slot], 0);
+        total += after - before;
+        if (after > 0) {
+            freeShifts[day.ordinal()] |= 1 << shift.ordinal();
+        } else {
+            freeShifts[day.ordinal()] &= ~(1 << shift.ordinal());
+        }
+    }
+
+    boolean hasRoom(DayOfWeek day, Shift shift) {
+        return (freeShifts[day.ordinal()] & (1 << shift.ordinal())) != 0;
+    }
+
+    // Bit per shift with room on this day
+    int freeShifts(DayOfWeek day) {
+        return freeShifts[day.ordinal()];
+    }
+
+    // Some shift with room on this day (earliest first), or null if the day is full
+    Shift freeShift(DayOfWeek day) {
+        int mask = freeShifts[day.ordinal()];
+        return mask == 0 ? null : SHIFTS[Integer.numberOfTrailingZeros(mask)];
+    }
+
+    // Free places across the whole week
+    int total() {
+        return total;
+    }
+}
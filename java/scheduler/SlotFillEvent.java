@@ -0,0 +1,28 @@
+package scheduler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// JFR event for one attempt to bring a day/shift slot up to a staff target
+@Name("scheduler.SlotFill")
+@Label("Slot Fill")
+@Category("Scheduler")
+@Description("Filling one day/shift slot up to a staff target")
+class SlotFillEvent extends jdk.jfr.Event {
+    @Label("Day")
+    String day;
+
+    @Label("Shift")
+    String shift;
+
+    @Label("Target")
+    int target;
+
+    @Label("Staff Before")
+    int staffBefore;
+
+    @Label("Staff After")
+    int staffAfter;
+}
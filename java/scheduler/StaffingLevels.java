@@ -0,0 +1,209 @@
+package scheduler;
+
+import dtos.DayOfWeek;
+import dtos.Role;
+import dtos.Shift;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+// Headcount wanted on each day/shift slot: a minimum that the schedulers fill first, and a target
+// they top up to from whoever is left. A slot can also require roles, at least one holder of each
+// (a keyholder and a cashier, say), kept as a mask of Role bits. DEFAULT is two, then three, on
+// every slot, with no roles required.
+//
+// Immutable; with() and requireRoles() return a copy with one slot changed. Files hold one
+// "day,shift,minimum,target[,roles]" row per slot to change from the default, with an optional
+// header row; days and shifts are spelled as in roster files (see RosterFiles) and roles as in
+// Role.fromInput, separated by ';'.
+public final class StaffingLevels {
+    private static final int SHIFTS = Shift.values().length;
+    private static final int SLOTS = DayOfWeek.values().length * SHIFTS;
+
+    public static final StaffingLevels DEFAULT =
+        uniform(Schedule.MIN_EMPLOYEES_PER_SHIFT, Schedule.TARGET_EMPLOYEES_PER_SHIFT);
+
+    private final int[] minimum; // [day * SHIFTS + shift]
+    private final int[] target;
+    private final int[] requiredRoles; // [slot] -> Role bits
+
+    private StaffingLevels(int[] minimum, int[] target, int[] requiredRoles) {
+        this.minimum = minimum;
+        this.target = target;
+        this.requiredRoles = requiredRoles;
+    }
+
+    // The same minimum and target on every slot
+    public static StaffingLevels uniform(int minimum, int target) {
+        check(minimum, target);
+        int[] minimums = new int[SLOTS];
+        int[] targets = new int[SLOTS];
+        Arrays.fill(minimums, minimum);
+        Arrays.fill(targets, target);
+        return new StaffingLevels(minimums, targets, new int[SLOTS]);
+    }
+
+    // A copy with one slot's levels replaced
+    public StaffingLevels with(DayOfWeek day, Shift shift, int minimum, int target) {
+        int slot = day.ordinal() * SHIFTS + shift.ordinal();
+        check(minimum, target, requiredRoles[slot]);
+        int[] minimums = this.minimum.clone();
+        int[] targets = this.target.clone();
+        minimums[slot] = minimum;
+        targets[slot] = target;
+        return new StaffingLevels(minimums, targets, requiredRoles);
+    }
+
+    // A copy where one slot requires exactly these roles (none clears the requirement)
+    public StaffingLevels requireRoles(DayOfWeek day, Shift shift, Role... roles) {
+        int mask = 0;
+        for (Role role : roles) {
+            mask |= role.bit();
+        }
+        int slot = day.ordinal() * SHIFTS + shift.ordinal();
+        check(minimum[slot], target[slot], mask);
+        int[] masks = requiredRoles.clone();
+        masks[slot] = mask;
+        return new StaffingLevels(minimum, target, masks);
+    }
+
+    private static void check(int minimum, int target) {
+        check(minimum, target, 0);
+    }
+
+    private static void check(int minimum, int target, int roles) {
+        if (minimum < 0 || target < minimum) {
+            throw new IllegalArgumentException("Need 0 <= minimum <= target, got " + minimum + " and " + target);
+        }
+        if (roles != 0 && target == 0) {
+            throw new IllegalArgumentException("A shift with a target of 0 cannot require roles");
+        }
+    }
+
+    // Levels from a file: DEFAULT with the listed slots changed
+    public static StaffingLevels read(Path file) throws IOException {
+        StaffingLevels levels = DEFAULT;
+        int lineNumber = 0;
+        for (String line : Files.readAllLines(file)) {
+            lineNumber++;
+            String[] fields = line.split(",", -1);
+            if (line.isBlank() || (lineNumber == 1 && fields[0].trim().equalsIgnoreCase("day"))) {
+                continue;
+            }
+            if (fields.length != 4 && fields.length != 5) {
+                throw new IOException(file + ":" + lineNumber + ": expected day,shift,minimum,target[,roles]");
+            }
+            DayOfWeek day = parseDay(fields[0].trim());
+            Shift shift = Shift.fromInput(fields[1]);
+            if (day == null || shift == null) {
+                throw new IOException(file + ":" + lineNumber + ": unknown " + (day == null ? "day '" + fields[0].trim()
+                    : "shift '" + fields[1].trim()) + "'");
+            }
+            List<Role> roles = new ArrayList<>();
+            if (fields.length == 5) {
+                for (String token : fields[4].split(";")) {
+                    if (token.isBlank()) {
+                        continue;
+                    }
+                    Role role = Role.fromInput(token);
+                    if (role == null) {
+                        throw new IOException(file + ":" + lineNumber + ": unknown role '" + token.trim() + "'");
+                    }
+                    roles.add(role);
+                }
+            }
+            try {
+                levels = levels.requireRoles(day, shift)
+                    .with(day, shift, Integer.parseInt(fields[2].trim()), Integer.parseInt(fields[3].trim()))
+                    .requireRoles(day, shift, roles.toArray(new Role[0]));
+            } catch (IllegalArgumentException e) { // Includes NumberFormatException
+                throw new IOException(file + ":" + lineNumber + ": " + e.getMessage());
+            }
+        }
+        return levels;
+    }
+
+    // Full name or the first three letters, any case
+    private static DayOfWeek parseDay(String text) {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            String name = day.getDisplayName();
+            if (text.equalsIgnoreCase(name) || text.equalsIgnoreCase(name.substring(0, 3))) {
+                return day;
+            }
+        }
+        return null;
+    }
+
+    public int minimum(DayOfWeek day, Shift shift) {
+        return minimum[day.ordinal() * SHIFTS + shift.ordinal()];
+    }
+
+    public int target(DayOfWeek day, Shift shift) {
+        return target[day.ordinal() * SHIFTS + shift.ordinal()];
+    }
+
+    // By slot index, day * 3 + shift
+    int minimum(int slot) {
+        return minimum[slot];
+    }
+
+    int target(int slot) {
+        return target[slot];
+    }
+
+    // Roles the slot needs a holder of, as Role bits
+    public int requiredRoles(DayOfWeek day, Shift shift) {
+        return requiredRoles[day.ordinal() * SHIFTS + shift.ordinal()];
+    }
+
+    int requiredRoles(int slot) {
+        return requiredRoles[slot];
+    }
+
+    // Whether any slot requires a role
+    public boolean requiresRoles() {
+        return Arrays.stream(requiredRoles).anyMatch(mask -> mask != 0);
+    }
+
+    // Largest target of any slot
+    public int maxTarget() {
+        return Arrays.stream(target).max().orElse(0);
+    }
+
+    // Sum of the targets across the week
+    public int totalTarget() {
+        return Arrays.stream(target).sum();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof StaffingLevels levels && Arrays.equals(minimum, levels.minimum)
+            && Arrays.equals(target, levels.target) && Arrays.equals(requiredRoles, levels.requiredRoles);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(minimum) + Arrays.hashCode(target)) + Arrays.hashCode(requiredRoles);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            text.append(day.getDisplayName()).append(':');
+            for (Shift shift : Shift.values()) {
+                text.append(' ').append(shift.getDisplayName()).append(' ')
+                    .append(minimum(day, shift)).append('-').append(target(day, shift));
+                for (Role role : Role.values()) {
+                    if ((requiredRoles(day, shift) & role.bit()) != 0) {
+                        text.append(" +").append(role.getDisplayName());
+                    }
+                }
+            }
+            text.append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+}